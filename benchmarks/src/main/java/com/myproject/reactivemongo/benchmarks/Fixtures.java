@@ -0,0 +1,48 @@
+package com.myproject.reactivemongo.benchmarks;
+
+import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.CustomerDTO;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Fully populated DTOs shaped like the ones the API returns.
+ */
+public final class Fixtures {
+
+    private static final Instant CREATED = Instant.parse("2024-03-01T10:15:30.123Z");
+
+    private Fixtures() {
+    }
+
+    public static BeerDTO beer(int i) {
+        return BeerDTO.builder()
+                .id(String.format("65e1b2c3d4e5f6a7b8c9%04x", i))
+                .beerName("Galaxy Cat " + i)
+                .beerStyle("Pale Ale")
+                .upc("12356" + i)
+                .quantityOnHand(120 + i)
+                .price(new BigDecimal("12.99"))
+                .createdDate(CREATED)
+                .lastModifiedDate(CREATED.plusSeconds(i))
+                .version(1L)
+                .build();
+    }
+
+    public static List<BeerDTO> beers(int count) {
+        return IntStream.range(0, count).mapToObj(Fixtures::beer).toList();
+    }
+
+    public static CustomerDTO customer(int i) {
+        return CustomerDTO.builder()
+                .id(String.format("65e1b2c3d4e5f6a7b8c9%04x", i))
+                .customerName("Customer " + i)
+                .createdDate(CREATED)
+                .lastModifiedDate(CREATED.plusSeconds(i))
+                .version(1L)
+                .build();
+    }
+}
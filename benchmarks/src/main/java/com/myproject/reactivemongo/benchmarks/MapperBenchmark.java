@@ -0,0 +1,70 @@
+package com.myproject.reactivemongo.benchmarks;
+
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.domain.Customer;
+import com.myproject.reactivemongo.mappers.BeerMapper;
+import com.myproject.reactivemongo.mappers.BeerMapperImpl;
+import com.myproject.reactivemongo.mappers.CustomerMapper;
+import com.myproject.reactivemongo.mappers.CustomerMapperImpl;
+import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.CustomerDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapStruct conversions done for every document read or written by the handlers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private final BeerMapper beerMapper = new BeerMapperImpl();
+    private final CustomerMapper customerMapper = new CustomerMapperImpl();
+
+    private Beer beer;
+    private BeerDTO beerDto;
+    private Customer customer;
+    private CustomerDTO customerDto;
+
+    @Setup
+    public void setUp() {
+        beerDto = Fixtures.beer(0);
+        beer = beerMapper.beerDtoToBeer(beerDto);
+        customerDto = Fixtures.customer(0);
+        customer = customerMapper.customerDtoToCustomer(customerDto);
+    }
+
+    @Benchmark
+    public BeerDTO beerToBeerDto() {
+        return beerMapper.beerToBeerDto(beer);
+    }
+
+    @Benchmark
+    public Beer beerDtoToBeer() {
+        return beerMapper.beerDtoToBeer(beerDto);
+    }
+
+    @Benchmark
+    public CustomerDTO customerToCustomerDto() {
+        return customerMapper.customerToCustomerDto(customer);
+    }
+
+    @Benchmark
+    public Customer customerDtoToCustomer() {
+        return customerMapper.customerDtoToCustomer(customerDto);
+    }
+}
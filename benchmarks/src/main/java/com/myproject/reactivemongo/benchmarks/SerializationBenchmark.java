@@ -0,0 +1,105 @@
+package com.myproject.reactivemongo.benchmarks;
+
+import com.myproject.reactivemongo.config.CodecConfig;
+import com.myproject.reactivemongo.model.BeerDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a list of beers with the codecs the application registers, in every list format it
+ * serves. JSON is written as one array; the other formats are written element by element.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private static final ResolvableType BEER_TYPE = ResolvableType.forClass(BeerDTO.class);
+
+    @Param({"application/json", "application/x-ndjson", "application/cbor-seq",
+            "application/x-jackson-smile", "application/x-protobuf"})
+    public String mediaType;
+
+    @Param({"1", "25", "500"})
+    public int beers;
+
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    private Encoder<BeerDTO> encoder;
+    private MediaType contentType;
+    private List<BeerDTO> payload;
+
+    @Setup
+    public void setUp() {
+        contentType = MediaType.parseMediaType(mediaType);
+        encoder = encoderFor(contentType);
+        payload = Fixtures.beers(beers);
+    }
+
+    @Benchmark
+    public long encode() {
+        return encoder.encode(Flux.fromIterable(payload), bufferFactory, BEER_TYPE, contentType, Map.of())
+                .map(SerializationBenchmark::release)
+                .reduce(0L, Long::sum)
+                .block();
+    }
+
+    private static long release(DataBuffer buffer) {
+        long size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Encoder<BeerDTO> encoderFor(MediaType mediaType) {
+
+        // Boot registers the builder as a prototype, and the customizer relies on getting a fresh one per call
+        RootBeanDefinition builder = new RootBeanDefinition(Jackson2ObjectMapperBuilder.class,
+                Jackson2ObjectMapperBuilder::json);
+        builder.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("jacksonObjectMapperBuilder", builder);
+
+        ServerCodecConfigurer configurer = ServerCodecConfigurer.create();
+        new CodecConfig().binaryCodecCustomizer(beanFactory.getBeanProvider(Jackson2ObjectMapperBuilder.class))
+                .customize(configurer);
+
+        return configurer.getWriters().stream()
+                .filter(EncoderHttpMessageWriter.class::isInstance)
+                .map(writer -> ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+                .filter(candidate -> candidate.canEncode(BEER_TYPE, mediaType))
+                .map(candidate -> (Encoder<BeerDTO>) candidate)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No encoder for " + mediaType));
+    }
+}
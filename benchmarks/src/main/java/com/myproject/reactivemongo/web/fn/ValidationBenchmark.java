@@ -0,0 +1,86 @@
+package com.myproject.reactivemongo.web.fn;
+
+import com.myproject.reactivemongo.benchmarks.Fixtures;
+import com.myproject.reactivemongo.model.BeerDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.ErrorResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean validation of beer bodies as the handlers do it. Lives in the handlers' package because
+ * {@link RequestValidator} is only used from there; the {@code body} benchmarks include building
+ * the problem detail and the exception for an invalid beer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private LocalValidatorFactoryBean validatorFactory;
+    private RequestValidator requestValidator;
+    private BeerDTO valid;
+    private BeerDTO invalid;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = new LocalValidatorFactoryBean();
+        validatorFactory.afterPropertiesSet();
+        requestValidator = new RequestValidator(validatorFactory);
+
+        valid = Fixtures.beer(0);
+        invalid = Fixtures.beer(0);
+        invalid.setBeerName(null);
+        invalid.setBeerStyle("IP");
+        invalid.setUpc("1");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public List<RequestValidator.Violation> violationsValid() {
+        return requestValidator.violations(valid, false);
+    }
+
+    @Benchmark
+    public List<RequestValidator.Violation> violationsInvalid() {
+        return requestValidator.violations(invalid, false);
+    }
+
+    @Benchmark
+    public BeerDTO bodyValid() {
+        return requestValidator.body(request(valid), BeerDTO.class).block();
+    }
+
+    @Benchmark
+    public Object bodyInvalid() {
+        return requestValidator.body(request(invalid), BeerDTO.class)
+                .<Object>map(beer -> beer)
+                .onErrorResume(ErrorResponseException.class, ex -> Mono.just(ex.getBody()))
+                .block();
+    }
+
+    private static MockServerRequest request(BeerDTO beer) {
+        return MockServerRequest.builder().body(Mono.just(beer));
+    }
+}
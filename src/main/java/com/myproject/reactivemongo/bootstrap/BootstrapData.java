@@ -61,7 +61,7 @@ public class BootstrapData implements CommandLineRunner {
                 Beer beer2 = Beer.builder()
                         .beerName("Crank")
                         .beerStyle("Pale Ale")
-                        .upc("12345")
+                        .upc("12346")
                         .price(new BigDecimal("14.05"))
                         .quantityOnHand(1234)
                         .build();
@@ -69,7 +69,7 @@ public class BootstrapData implements CommandLineRunner {
                 Beer beer3 = Beer.builder()
                         .beerName("Sunshine City")
                         .beerStyle("Ipa")
-                        .upc("12345")
+                        .upc("12347")
                         .price(new BigDecimal("21.37"))
                         .quantityOnHand(1234)
                         .build();
@@ -0,0 +1,51 @@
+package com.myproject.reactivemongo.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.myproject.reactivemongo.config.DocumentCacheProperties;
+import com.myproject.reactivemongo.domain.Beer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+@Component
+public class BeerCache implements MeterBinder {
+
+    private final DocumentCache<Beer> byId;
+    private final DocumentCache<Beer> byName;
+
+    public BeerCache(DocumentCacheProperties properties) {
+        this.byId = new DocumentCache<>("beer", properties.getBeer());
+        this.byName = new DocumentCache<>("beerName", properties.getBeerName());
+    }
+
+    public Mono<Beer> getById(String beerId, Function<String, Mono<Beer>> loader) {
+        return byId.get(beerId, loader);
+    }
+
+    public Mono<Beer> getByName(String beerName, Function<String, Mono<Beer>> loader) {
+        return byName.get(beerName, loader);
+    }
+
+    public CacheStats stats() {
+        return byId.stats();
+    }
+
+    public void evict(String beerId) {
+        byId.invalidate(beerId);
+        byName.invalidateAll();
+    }
+
+    public void evictAll() {
+        byId.invalidateAll();
+        byName.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        byId.bindTo(registry);
+        byName.bindTo(registry);
+    }
+}
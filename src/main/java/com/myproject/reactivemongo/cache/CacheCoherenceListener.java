@@ -0,0 +1,132 @@
+package com.myproject.reactivemongo.cache;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.myproject.reactivemongo.config.DocumentCacheProperties;
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.domain.Customer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the local document caches coherent with writes made by other nodes by tailing a change stream
+ * per collection. The last resume token is kept so a dropped stream resumes without missing events;
+ * when the position cannot be recovered the whole cache is invalidated instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "document-cache.coherence", name = "enabled", havingValue = "true")
+public class CacheCoherenceListener {
+
+    private static final Set<Integer> HISTORY_LOST_CODES = Set.of(
+            260, // InvalidResumeToken
+            280, // ChangeStreamFatalError
+            286  // ChangeStreamHistoryLost
+    );
+
+    private static final Document PROJECT_KEYS_ONLY = new Document("$project",
+            new Document("operationType", 1).append("documentKey", 1));
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final BeerCache beerCache;
+    private final CustomerCache customerCache;
+    private final DocumentCacheProperties properties;
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscriptions.add(watch(mongoTemplate.getCollectionName(Beer.class), beerCache::evict, beerCache::evictAll));
+        subscriptions.add(watch(mongoTemplate.getCollectionName(Customer.class), customerCache::evict, customerCache::evictAll));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    private Disposable watch(String collection, Consumer<String> evict, Runnable evictAll) {
+
+        AtomicReference<BsonValue> resumeToken = new AtomicReference<>();
+        DocumentCacheProperties.Coherence coherence = properties.getCoherence();
+
+        return Flux.defer(() -> mongoTemplate.changeStream(collection, options(resumeToken.get()), Document.class))
+                .doOnNext(event -> {
+                    apply(event, evict, evictAll);
+                    resumeToken.set(isInvalidate(event) ? null : event.getResumeToken());
+                })
+                .doOnError(ex -> {
+                    if (resumeToken.get() == null || isHistoryLost(ex)) {
+                        log.warn("Change stream on {} lost its position, invalidating local cache", collection, ex);
+                        resumeToken.set(null);
+                        evictAll.run();
+                    } else {
+                        log.warn("Change stream on {} failed, resuming from last token", collection, ex);
+                    }
+                })
+                // the backoff starts over once the stream delivers an event again
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, coherence.getMinRetryBackoff())
+                        .maxBackoff(coherence.getMaxRetryBackoff())
+                        .transientErrors(true))
+                .repeat()
+                .subscribe();
+    }
+
+    private static ChangeStreamOptions options(BsonValue resumeToken) {
+
+        ChangeStreamOptions.ChangeStreamOptionsBuilder builder = ChangeStreamOptions.builder()
+                .filter(PROJECT_KEYS_ONLY);
+
+        if (resumeToken != null) {
+            builder.resumeAfter(resumeToken);
+        }
+        return builder.build();
+    }
+
+    private static void apply(ChangeStreamEvent<Document> event, Consumer<String> evict, Runnable evictAll) {
+
+        ChangeStreamDocument<Document> raw = event.getRaw();
+        BsonDocument documentKey = raw != null ? raw.getDocumentKey() : null;
+
+        if (documentKey != null && documentKey.isObjectId("_id")) {
+            evict.accept(documentKey.getObjectId("_id").getValue().toHexString());
+        } else {
+            evictAll.run();
+        }
+    }
+
+    private static boolean isInvalidate(ChangeStreamEvent<Document> event) {
+        return event.getOperationType() == OperationType.INVALIDATE;
+    }
+
+    private static boolean isHistoryLost(Throwable throwable) {
+
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && HISTORY_LOST_CODES.contains(mongoException.getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,42 @@
+package com.myproject.reactivemongo.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.myproject.reactivemongo.config.DocumentCacheProperties;
+import com.myproject.reactivemongo.domain.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+@Component
+public class CustomerCache implements MeterBinder {
+
+    private final DocumentCache<Customer> byId;
+
+    public CustomerCache(DocumentCacheProperties properties) {
+        this.byId = new DocumentCache<>("customer", properties.getCustomer());
+    }
+
+    public Mono<Customer> getById(String customerId, Function<String, Mono<Customer>> loader) {
+        return byId.get(customerId, loader);
+    }
+
+    public CacheStats stats() {
+        return byId.stats();
+    }
+
+    public void evict(String customerId) {
+        byId.invalidate(customerId);
+    }
+
+    public void evictAll() {
+        byId.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        byId.bindTo(registry);
+    }
+}
@@ -0,0 +1,34 @@
+package com.myproject.reactivemongo.cache;
+
+import com.myproject.reactivemongo.config.DocumentCacheProperties;
+import com.myproject.reactivemongo.model.BeerDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Short lived cache of inventory reports computed by aggregation. Reports are not evicted on writes; they are allowed to be
+ * as stale as the configured ttl.
+ */
+@Component
+public class InventoryCache implements MeterBinder {
+
+    private final DocumentCache<List<BeerDTO>> lowStock;
+
+    public InventoryCache(DocumentCacheProperties properties) {
+        this.lowStock = new DocumentCache<>("inventoryLowStock", properties.getInventory());
+    }
+
+    public Mono<List<BeerDTO>> getLowStock(int limit, Supplier<Mono<List<BeerDTO>>> loader) {
+        return lowStock.get(String.valueOf(limit), key -> loader.get());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lowStock.bindTo(registry);
+    }
+}
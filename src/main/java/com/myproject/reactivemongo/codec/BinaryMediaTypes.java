@@ -0,0 +1,17 @@
+package com.myproject.reactivemongo.codec;
+
+import org.springframework.http.MediaType;
+
+public final class BinaryMediaTypes {
+
+    /**
+     * RFC 8742 CBOR sequence: one CBOR item per element, for streamed lists.
+     */
+    public static final MediaType APPLICATION_CBOR_SEQ = new MediaType("application", "cbor-seq");
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    public static final MediaType APPLICATION_STREAM_SMILE = new MediaType("application", "stream+x-jackson-smile");
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private BinaryMediaTypes() {
+    }
+}
@@ -0,0 +1,53 @@
+package com.myproject.reactivemongo.codec;
+
+import com.google.protobuf.Message;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.protobuf.ProtobufDecoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads beer and customer DTOs from protobuf: a single message for one DTO, length-delimited
+ * messages for a stream.
+ */
+public class DtoProtobufDecoder implements Decoder<Object> {
+
+    private final ProtobufDecoder delegate = new ProtobufDecoder();
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return DtoProtobufEncoder.isProtobuf(mimeType) && ProtoMessages.supports(elementType.toClass());
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType,
+                               MimeType mimeType, Map<String, Object> hints) {
+
+        return delegate.decode(inputStream, messageType(elementType), mimeType, hints)
+                .map(ProtoMessages::toDto);
+    }
+
+    @Override
+    public Mono<Object> decodeToMono(Publisher<DataBuffer> inputStream, ResolvableType elementType,
+                                     MimeType mimeType, Map<String, Object> hints) {
+
+        return delegate.decodeToMono(inputStream, messageType(elementType), mimeType, hints)
+                .map(ProtoMessages::toDto);
+    }
+
+    @Override
+    public List<MimeType> getDecodableMimeTypes() {
+        return List.of(BinaryMediaTypes.APPLICATION_PROTOBUF);
+    }
+
+    private static ResolvableType messageType(ResolvableType elementType) {
+        return ResolvableType.forClass(ProtoMessages.messageType(elementType.toClass()));
+    }
+}
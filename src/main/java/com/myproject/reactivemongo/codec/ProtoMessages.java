@@ -0,0 +1,142 @@
+package com.myproject.reactivemongo.codec;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.CustomerDTO;
+import com.myproject.reactivemongo.model.proto.BeerMessage;
+import com.myproject.reactivemongo.model.proto.CustomerMessage;
+import com.myproject.reactivemongo.model.proto.DecimalValue;
+import org.springframework.core.codec.EncodingException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+
+/**
+ * Maps the API DTOs to and from the messages in {@code dto.proto}. Empty proto strings read back as
+ * null so absent fields behave as they do in JSON.
+ */
+final class ProtoMessages {
+
+    private ProtoMessages() {
+    }
+
+    static boolean supports(Class<?> type) {
+        return type == BeerDTO.class || type == CustomerDTO.class;
+    }
+
+    static Class<? extends Message> messageType(Class<?> type) {
+        return type == BeerDTO.class ? BeerMessage.class : CustomerMessage.class;
+    }
+
+    static Message toMessage(Object dto) {
+
+        if (dto instanceof BeerDTO beer) {
+            return toMessage(beer);
+        }
+        if (dto instanceof CustomerDTO customer) {
+            return toMessage(customer);
+        }
+        throw new EncodingException("No protobuf message for " + (dto == null ? null : dto.getClass().getName()));
+    }
+
+    static Object toDto(Message message) {
+
+        if (message instanceof BeerMessage beer) {
+            return toDto(beer);
+        }
+        return toDto((CustomerMessage) message);
+    }
+
+    static BeerMessage toMessage(BeerDTO dto) {
+
+        BeerMessage.Builder builder = BeerMessage.newBuilder();
+
+        if (dto.getId() != null) {
+            builder.setId(dto.getId());
+        }
+        if (dto.getBeerName() != null) {
+            builder.setBeerName(dto.getBeerName());
+        }
+        if (dto.getBeerStyle() != null) {
+            builder.setBeerStyle(dto.getBeerStyle());
+        }
+        if (dto.getUpc() != null) {
+            builder.setUpc(dto.getUpc());
+        }
+        if (dto.getQuantityOnHand() != null) {
+            builder.setQuantityOnHand(dto.getQuantityOnHand());
+        }
+        if (dto.getPrice() != null) {
+            builder.setPrice(DecimalValue.newBuilder()
+                    .setUnscaledValue(ByteString.copyFrom(dto.getPrice().unscaledValue().toByteArray()))
+                    .setScale(dto.getPrice().scale()));
+        }
+        if (dto.getCreatedDate() != null) {
+            builder.setCreatedDate(dto.getCreatedDate().toEpochMilli());
+        }
+        if (dto.getLastModifiedDate() != null) {
+            builder.setLastModifiedDate(dto.getLastModifiedDate().toEpochMilli());
+        }
+        if (dto.getVersion() != null) {
+            builder.setVersion(dto.getVersion());
+        }
+        return builder.build();
+    }
+
+    static BeerDTO toDto(BeerMessage message) {
+
+        return BeerDTO.builder()
+                .id(emptyToNull(message.getId()))
+                .beerName(emptyToNull(message.getBeerName()))
+                .beerStyle(emptyToNull(message.getBeerStyle()))
+                .upc(emptyToNull(message.getUpc()))
+                .quantityOnHand(message.hasQuantityOnHand() ? message.getQuantityOnHand() : null)
+                .price(message.hasPrice()
+                        ? new BigDecimal(new BigInteger(message.getPrice().getUnscaledValue().toByteArray()),
+                        message.getPrice().getScale())
+                        : null)
+                .createdDate(message.hasCreatedDate() ? Instant.ofEpochMilli(message.getCreatedDate()) : null)
+                .lastModifiedDate(message.hasLastModifiedDate() ? Instant.ofEpochMilli(message.getLastModifiedDate()) : null)
+                .version(message.hasVersion() ? message.getVersion() : null)
+                .build();
+    }
+
+    static CustomerMessage toMessage(CustomerDTO dto) {
+
+        CustomerMessage.Builder builder = CustomerMessage.newBuilder();
+
+        if (dto.getId() != null) {
+            builder.setId(dto.getId());
+        }
+        if (dto.getCustomerName() != null) {
+            builder.setCustomerName(dto.getCustomerName());
+        }
+        if (dto.getCreatedDate() != null) {
+            builder.setCreatedDate(dto.getCreatedDate().toEpochMilli());
+        }
+        if (dto.getLastModifiedDate() != null) {
+            builder.setLastModifiedDate(dto.getLastModifiedDate().toEpochMilli());
+        }
+        if (dto.getVersion() != null) {
+            builder.setVersion(dto.getVersion());
+        }
+        return builder.build();
+    }
+
+    static CustomerDTO toDto(CustomerMessage message) {
+
+        return CustomerDTO.builder()
+                .id(emptyToNull(message.getId()))
+                .customerName(emptyToNull(message.getCustomerName()))
+                .createdDate(message.hasCreatedDate() ? Instant.ofEpochMilli(message.getCreatedDate()) : null)
+                .lastModifiedDate(message.hasLastModifiedDate() ? Instant.ofEpochMilli(message.getLastModifiedDate()) : null)
+                .version(message.hasVersion() ? message.getVersion() : null)
+                .build();
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
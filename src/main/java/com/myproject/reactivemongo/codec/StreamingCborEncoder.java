@@ -0,0 +1,52 @@
+package com.myproject.reactivemongo.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CBOR encoder that also handles streams, which {@link Jackson2CborEncoder} rejects. A stream is
+ * written as a single CBOR array for {@code application/cbor} and as a CBOR sequence, one item per
+ * element, for {@code application/cbor-seq}.
+ */
+public class StreamingCborEncoder extends Jackson2CborEncoder {
+
+    public StreamingCborEncoder(ObjectMapper mapper) {
+        super(mapper, MediaType.APPLICATION_CBOR, BinaryMediaTypes.APPLICATION_CBOR_SEQ);
+        setStreamingMediaTypes(List.of(BinaryMediaTypes.APPLICATION_CBOR_SEQ));
+    }
+
+    /**
+     * Only used when CBOR was negotiated, so JSON stays the default for requests without a media type.
+     */
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return mimeType != null && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+
+        if (inputStream instanceof Mono || BinaryMediaTypes.APPLICATION_CBOR_SEQ.isCompatibleWith(mimeType)) {
+            return Flux.from(inputStream)
+                    .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+        }
+
+        return Flux.from(inputStream)
+                .collectList()
+                .map(values -> encodeValue(values, bufferFactory,
+                        ResolvableType.forClassWithGenerics(List.class, elementType), mimeType, hints))
+                .flux();
+    }
+}
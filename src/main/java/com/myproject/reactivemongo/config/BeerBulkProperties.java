@@ -0,0 +1,11 @@
+package com.myproject.reactivemongo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "beer.bulk")
+public class BeerBulkProperties {
+
+    private int batchSize = 500;
+}
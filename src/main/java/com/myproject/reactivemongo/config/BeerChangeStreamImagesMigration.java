@@ -0,0 +1,61 @@
+package com.myproject.reactivemongo.config;
+
+import com.mongodb.MongoException;
+import com.myproject.reactivemongo.domain.Beer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Turns on pre- and post-images for the beer collection, which MongoDB 6.0 needs before change streams
+ * can carry the beer as it was before an update or delete. Off unless asked for, since it changes the
+ * collection options and costs the server storage for every change.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "mongo.migrations", name = "beer-change-stream-images", havingValue = "true")
+public class BeerChangeStreamImagesMigration {
+
+    private static final int NAMESPACE_NOT_FOUND = 26;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        migrate().subscribe();
+    }
+
+    public Mono<Void> migrate() {
+
+        String collection = mongoTemplate.getCollectionName(Beer.class);
+
+        return mongoTemplate.executeCommand(new Document("collMod", collection)
+                        .append("changeStreamPreAndPostImages", new Document("enabled", true)))
+                .then()
+                .onErrorResume(BeerChangeStreamImagesMigration::isNamespaceNotFound,
+                        ex -> mongoTemplate.createCollection(collection, CollectionOptions.emitChangedRevisions()).then())
+                .doOnSuccess(done -> log.info("Recording change stream pre- and post-images on {}", collection))
+                .onErrorResume(ex -> {
+                    log.error("Could not turn on change stream pre- and post-images on {}", collection, ex);
+                    return Mono.empty();
+                });
+    }
+
+    private static boolean isNamespaceNotFound(Throwable throwable) {
+
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && mongoException.getCode() == NAMESPACE_NOT_FOUND) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.myproject.reactivemongo.config;
+
+import com.mongodb.client.result.UpdateResult;
+import com.myproject.reactivemongo.domain.Beer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Converts beer prices stored as strings, from before prices were mapped to Decimal128, in a single
+ * server-side update. Only string prices are touched, so running it again is a no-op. A price that is
+ * not a number is left as it is and reported.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "mongo.migrations", name = "beer-price", havingValue = "true", matchIfMissing = true)
+public class BeerPriceMigration {
+
+    private static final String PRICE = "price";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        migrate().subscribe();
+    }
+
+    public Mono<Long> migrate() {
+
+        String collection = mongoTemplate.getCollectionName(Beer.class);
+
+        return mongoTemplate.updateMulti(query(where(PRICE).type(JsonSchemaObject.Type.STRING)),
+                        AggregationUpdate.update().set(PRICE).toValue(ConvertOperators.Convert.convertValueOf(PRICE)
+                                .to("decimal")
+                                .onErrorReturnValueOf(PRICE)),
+                        collection)
+                .map(UpdateResult::getModifiedCount)
+                .flatMap(converted -> mongoTemplate.count(query(where(PRICE).type(JsonSchemaObject.Type.STRING)), collection)
+                        .doOnNext(remaining -> {
+                            if (converted > 0) {
+                                log.info("Converted {} string price(s) on {} to Decimal128", converted, collection);
+                            }
+                            if (remaining > 0) {
+                                log.warn("{} price(s) on {} are strings that are not numbers", remaining, collection);
+                            }
+                        })
+                        .thenReturn(converted))
+                .onErrorResume(ex -> {
+                    log.error("Could not convert string prices on {}", collection, ex);
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,56 @@
+package com.myproject.reactivemongo.config;
+
+import com.mongodb.client.result.UpdateResult;
+import com.myproject.reactivemongo.domain.Beer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Fills in searchName on beers written before it was kept, in a single server-side update, so name prefix
+ * filters and type-ahead search find them. Only beers without a searchName are touched, so running it
+ * again is a no-op.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "mongo.migrations", name = "beer-search-name", havingValue = "true", matchIfMissing = true)
+public class BeerSearchNameMigration {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        migrate().subscribe();
+    }
+
+    public Mono<Long> migrate() {
+
+        String collection = mongoTemplate.getCollectionName(Beer.class);
+
+        return mongoTemplate.updateMulti(query(where("searchName").exists(false).and("beerName").type(JsonSchemaObject.Type.STRING)),
+                        AggregationUpdate.update().set("searchName").toValue(StringOperators.ToLower.lowerValueOf("beerName")),
+                        collection)
+                .map(UpdateResult::getModifiedCount)
+                .doOnNext(backfilled -> {
+                    if (backfilled > 0) {
+                        log.info("Backfilled searchName on {} beer(s) in {}", backfilled, collection);
+                    }
+                })
+                .onErrorResume(ex -> {
+                    log.error("Could not backfill searchName on {}", collection, ex);
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,36 @@
+package com.myproject.reactivemongo.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "document-cache")
+public class DocumentCacheProperties {
+
+    private Spec beer = new Spec();
+    private Spec beerName = new Spec();
+    private Spec customer = new Spec();
+    private Spec inventory = new Spec(100, Duration.ofSeconds(30));
+    private Coherence coherence = new Coherence();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Spec {
+
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Coherence {
+
+        private boolean enabled = false;
+        private Duration minRetryBackoff = Duration.ofSeconds(1);
+        private Duration maxRetryBackoff = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,58 @@
+package com.myproject.reactivemongo.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports {@code $indexStats} for the indexed collections on demand, at {@code /actuator/indexusage}.
+ * The counters start at zero whenever the server restarts or an index is rebuilt, so an index is only
+ * a candidate for removal once it shows no operations over a representative period of traffic.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "indexusage")
+public class IndexUsageEndpoint {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public record IndexUsage(String name, long ops, Date since) {
+    }
+
+    @ReadOperation
+    public Mono<Map<String, List<IndexUsage>>> indexUsage() {
+
+        return Flux.fromIterable(MongoIndexInitializer.INDEXED_TYPES)
+                .map(mongoTemplate::getCollectionName)
+                .concatMap(collection -> indexUsage(collection).collectList()
+                        .map(usage -> Map.entry(collection, usage)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private Flux<IndexUsage> indexUsage(String collection) {
+
+        return mongoTemplate.getCollection(collection)
+                .flatMapMany(c -> c.aggregate(List.of(new Document("$indexStats", new Document()))))
+                .filter(stats -> stats.get("accesses") instanceof Document)
+                .map(stats -> {
+                    Document accesses = stats.get("accesses", Document.class);
+                    return new IndexUsage(stats.getString("name"), accesses.get("ops", Number.class).longValue(),
+                            accesses.getDate("since"));
+                })
+                .onErrorResume(ex -> {
+                    log.debug("$indexStats is not available for {}", collection, ex);
+                    return Flux.empty();
+                });
+    }
+}
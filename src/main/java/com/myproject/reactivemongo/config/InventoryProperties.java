@@ -0,0 +1,41 @@
+package com.myproject.reactivemongo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory")
+public class InventoryProperties {
+
+    /**
+     * Lets the aggregation stages spill to disk once they exceed the server's memory limit.
+     */
+    private boolean allowDiskUse = true;
+
+    private int lowStockDefaultLimit = 10;
+
+    private boolean reconcileEnabled = true;
+
+    /**
+     * How often the beer style summaries are rebuilt from the beer collection.
+     */
+    private Duration reconcileInterval = Duration.ofHours(1);
+
+    private SummaryChangeStream summaryChangeStream = new SummaryChangeStream();
+
+    /**
+     * Reconciles the styles touched by changes on the beer change stream, which needs a replica set. Only
+     * needed when beers are also written outside this service.
+     */
+    @Data
+    public static class SummaryChangeStream {
+
+        private boolean enabled = false;
+        private int batchSize = 100;
+        private Duration batchWindow = Duration.ofSeconds(1);
+        private Duration minRetryBackoff = Duration.ofSeconds(1);
+        private Duration maxRetryBackoff = Duration.ofSeconds(30);
+    }
+}
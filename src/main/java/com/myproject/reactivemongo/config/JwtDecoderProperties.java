@@ -0,0 +1,53 @@
+package com.myproject.reactivemongo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+
+/**
+ * Caching of the issuer's JWK set and of verified tokens. The issuer and JWK set URI themselves come
+ * from {@code spring.security.oauth2.resourceserver.jwt}.
+ */
+@Data
+@ConfigurationProperties(prefix = "security.jwt")
+public class JwtDecoderProperties {
+
+    /**
+     * How long a fetched JWK set is considered fresh.
+     */
+    private Duration jwkSetTtl = Duration.ofMinutes(10);
+
+    /**
+     * Interval of the background refresh.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(5);
+
+    /**
+     * A request that sees the keys this close to expiry triggers a background refresh.
+     */
+    private Duration refreshAhead = Duration.ofMinutes(1);
+
+    /**
+     * How long expired keys keep being used while refreshes fail.
+     */
+    private Duration maxStale = Duration.ofHours(12);
+
+    /**
+     * Minimum time between refreshes triggered by requests, e.g. by tokens with an unknown key id.
+     */
+    private Duration minRefreshInterval = Duration.ofSeconds(30);
+
+    private Duration fetchTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Local JWK set used until the issuer has been reached, and after fetched keys are too stale.
+     */
+    private Resource fallbackJwkSet;
+
+    /**
+     * Maximum number of verified tokens remembered until they expire.
+     */
+    private long verifiedTokensMaximumSize = 10_000;
+}
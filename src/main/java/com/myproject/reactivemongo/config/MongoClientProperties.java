@@ -0,0 +1,62 @@
+package com.myproject.reactivemongo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Driver settings applied on top of {@code spring.data.mongodb.uri}; values set here win over the
+ * matching URI options.
+ */
+@Data
+@ConfigurationProperties(prefix = "mongo.client")
+public class MongoClientProperties {
+
+    private Pool pool = new Pool();
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    private Duration serverSelectionTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Wire compressors offered to the server in order of preference: zstd, snappy or zlib.
+     */
+    private List<String> compressors = List.of("zstd", "snappy");
+
+    /**
+     * Read preference name, e.g. primary or secondaryPreferred.
+     */
+    private String readPreference = "primary";
+
+    /**
+     * Write concern name, e.g. acknowledged, w1 or majority.
+     */
+    private String writeConcern = "acknowledged";
+
+    /**
+     * Read routing for list and search queries. Point reads keep the client read preference so
+     * clients read their own writes.
+     */
+    private ListReads listReads = new ListReads();
+
+    @Data
+    public static class Pool {
+
+        private int minSize = 0;
+        private int maxSize = 100;
+        private Duration maxWaitTime = Duration.ofSeconds(5);
+        private Duration maxConnectionIdleTime = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class ListReads {
+
+        private String readPreference = "primary";
+
+        /**
+         * Maximum replication lag tolerated on a secondary, at least 90 seconds. Unset for no bound.
+         */
+        private Duration maxStaleness;
+    }
+}
@@ -1,26 +1,48 @@
 package com.myproject.reactivemongo.config;
 
+import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
-import com.mongodb.MongoCredential;
-import com.mongodb.ServerAddress;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
 import com.mongodb.reactivestreams.client.MongoClient;
-import com.mongodb.reactivestreams.client.MongoClients;
+import com.myproject.reactivemongo.listeners.ConnectionCheckoutListener;
+import com.myproject.reactivemongo.queryplan.QueryPlanGuardingMongoTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
 import org.springframework.data.mongodb.config.AbstractReactiveMongoConfiguration;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
 import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
 
-import static java.util.Collections.singletonList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
+@RequiredArgsConstructor
 @EnableReactiveMongoRepositories(basePackages = "com.myproject.reactivemongo.repositories")
 @EnableMongoAuditing
 public class MongoConfig extends AbstractReactiveMongoConfiguration {
 
+    private final MongoProperties mongoProperties;
+    private final MongoClientProperties clientProperties;
+    private final QueryPlanGuardProperties queryPlanGuardProperties;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
     @Bean
-    public MongoClient mongoClient() {
-        return MongoClients.create();
+    @Override
+    public MongoClient reactiveMongoClient() {
+        return super.reactiveMongoClient();
     }
 
     @Override
@@ -28,4 +50,75 @@ public class MongoConfig extends AbstractReactiveMongoConfiguration {
         return "sfg";
     }
 
+    @Override
+    protected void configureClientSettings(MongoClientSettings.Builder builder) {
+
+        MongoClientProperties.Pool pool = clientProperties.getPool();
+        ConnectionString connectionString = new ConnectionString(mongoProperties.determineUri());
+
+        // command timings and spans, parented to the caller's observation from the Reactor context
+        builder.applyConnectionString(connectionString)
+                .addCommandListener(new MongoObservationCommandListener(observationRegistry, connectionString))
+                .contextProvider(ContextProviderFactory.create(observationRegistry))
+                .applyToConnectionPoolSettings(settings -> settings
+                        .minSize(pool.getMinSize())
+                        .maxSize(pool.getMaxSize())
+                        .maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(pool.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry))
+                        .addConnectionPoolListener(new ConnectionCheckoutListener(meterRegistry)))
+                .applyToSocketSettings(settings -> settings
+                        .connectTimeout((int) clientProperties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout((int) clientProperties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(settings -> settings
+                        .serverSelectionTimeout(clientProperties.getServerSelectionTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .compressorList(compressors(clientProperties.getCompressors()))
+                .readPreference(ReadPreference.valueOf(clientProperties.getReadPreference()))
+                .writeConcern(writeConcern(clientProperties.getWriteConcern()));
+    }
+
+    @Bean
+    @Override
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory databaseFactory,
+                                                       MappingMongoConverter mongoConverter) {
+
+        if (!queryPlanGuardProperties.isEnabled()) {
+            return super.reactiveMongoTemplate(databaseFactory, mongoConverter);
+        }
+        return new QueryPlanGuardingMongoTemplate(databaseFactory, mongoConverter, queryPlanGuardProperties, meterRegistry);
+    }
+
+    @Bean
+    public ReadPreference listReadPreference() {
+
+        MongoClientProperties.ListReads listReads = clientProperties.getListReads();
+
+        if (listReads.getMaxStaleness() == null) {
+            return ReadPreference.valueOf(listReads.getReadPreference());
+        }
+        return ReadPreference.valueOf(listReads.getReadPreference(), List.of(),
+                listReads.getMaxStaleness().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static List<MongoCompressor> compressors(List<String> names) {
+
+        return names.stream()
+                .map(name -> switch (name.toLowerCase()) {
+                    case "zstd" -> MongoCompressor.createZstdCompressor();
+                    case "snappy" -> MongoCompressor.createSnappyCompressor();
+                    case "zlib" -> MongoCompressor.createZlibCompressor();
+                    default -> throw new IllegalArgumentException("Unsupported Mongo compressor: " + name);
+                })
+                .toList();
+    }
+
+    private static WriteConcern writeConcern(String name) {
+
+        WriteConcern writeConcern = WriteConcern.valueOf(name);
+
+        if (writeConcern == null) {
+            throw new IllegalArgumentException("Unknown Mongo write concern: " + name);
+        }
+        return writeConcern;
+    }
 }
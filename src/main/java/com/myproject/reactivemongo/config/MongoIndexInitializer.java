@@ -0,0 +1,79 @@
+package com.myproject.reactivemongo.config;
+
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.domain.Customer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the indexes declared on the mapped documents once the application is up, then logs indexes
+ * that exist on the collection but are not declared. Index builds run in the background so startup and
+ * traffic are not blocked. Index usage is reported on demand by {@link IndexUsageEndpoint}, since at
+ * startup every index would show as unused.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "mongo.indexes", name = "ensure-on-startup", havingValue = "true", matchIfMissing = true)
+public class MongoIndexInitializer {
+
+    static final List<Class<?>> INDEXED_TYPES = List.of(Beer.class, Customer.class);
+    private static final String ID_INDEX = "_id_";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+
+        Flux.fromIterable(INDEXED_TYPES)
+                .concatMap(type -> ensureIndexes(type, resolver))
+                .subscribe();
+    }
+
+    private Mono<Void> ensureIndexes(Class<?> type, IndexResolver resolver) {
+
+        String collection = mongoTemplate.getCollectionName(type);
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(type);
+        Set<String> declared = ConcurrentHashMap.newKeySet();
+
+        return Flux.fromIterable(resolver.resolveIndexFor(type))
+                .concatMap(definition -> ensureIndex(indexOps, collection, definition))
+                .doOnNext(declared::add)
+                .thenMany(indexOps.getIndexInfo())
+                .map(IndexInfo::getName)
+                .filter(name -> !ID_INDEX.equals(name) && !declared.contains(name))
+                .doOnNext(name -> log.warn("Index {} on {} is not declared by {}", name, collection, type.getSimpleName()))
+                .onErrorResume(ex -> {
+                    log.warn("Could not verify indexes on {}", collection, ex);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static Mono<String> ensureIndex(ReactiveIndexOperations indexOps, String collection, IndexDefinition definition) {
+
+        return indexOps.ensureIndex(definition)
+                .doOnNext(name -> log.debug("Ensured index {} on {}", name, collection))
+                .onErrorResume(ex -> {
+                    log.error("Missing index {} on {} could not be created", definition.getIndexKeys().toJson(), collection, ex);
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,39 @@
+package com.myproject.reactivemongo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "mongo.query-plan-guard")
+public class QueryPlanGuardProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Fraction of filtered or sorted queries that are explained, between 0 and 1.
+     */
+    private double sampleRate = 0.01;
+
+    /**
+     * Reject sampled queries that resolve to a collection scan instead of only recording them.
+     */
+    private boolean strict = false;
+
+    /**
+     * Collections with fewer documents than this may be scanned even in strict mode.
+     */
+    private long collectionScanThreshold = 1_000;
+
+    /**
+     * Explain in {@code executionStats} verbosity to record the keys and documents examined. This runs
+     * every sampled query a second time on the server; without it only the query planner is asked for
+     * the winning plan, which does not execute the query.
+     */
+    private boolean executionStats = false;
+
+    /**
+     * With execution stats, strict mode also rejects queries that examine more documents than this per
+     * document returned, e.g. an index that barely narrows the filter.
+     */
+    private double maxDocsExaminedPerReturned = 100;
+}
@@ -0,0 +1,48 @@
+package com.myproject.reactivemongo.config;
+
+import com.myproject.reactivemongo.codec.BinaryMediaTypes;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "response-compression")
+public class ResponseCompressionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Supported content codings in order of preference, used to break ties between codings the
+     * client accepts with the same quality.
+     */
+    private List<String> encodings = List.of("zstd", "gzip", "deflate");
+
+    /**
+     * Deflate level used for gzip and deflate, from 1 (fastest) to 9 (smallest).
+     */
+    private int level = 6;
+
+    /**
+     * Zstandard level, from 1 (fastest) to 22 (smallest).
+     */
+    private int zstdLevel = 3;
+
+    /**
+     * Bodies smaller than this are sent uncompressed. Streaming responses are compressed from the
+     * first element since their size is not known up front.
+     */
+    private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+    private List<MediaType> mimeTypes = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_NDJSON,
+            MediaType.APPLICATION_CBOR,
+            BinaryMediaTypes.APPLICATION_CBOR_SEQ,
+            BinaryMediaTypes.APPLICATION_SMILE,
+            BinaryMediaTypes.APPLICATION_STREAM_SMILE,
+            BinaryMediaTypes.APPLICATION_PROTOBUF,
+            MediaType.TEXT_PLAIN);
+}
@@ -1,24 +1,53 @@
 package com.myproject.reactivemongo.config;
 
+import com.myproject.reactivemongo.security.ScopeAuthenticationConverter;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.Customizer;
-import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 
+import static com.myproject.reactivemongo.security.ScopeAuthorizationManager.anyScope;
+import static com.myproject.reactivemongo.security.Scopes.BEER_READ;
+import static com.myproject.reactivemongo.security.Scopes.BEER_WRITE;
+import static com.myproject.reactivemongo.security.Scopes.CUSTOMER_ADMIN;
+import static com.myproject.reactivemongo.security.Scopes.CUSTOMER_READ;
+import static com.myproject.reactivemongo.security.Scopes.CUSTOMER_WRITE;
+import static com.myproject.reactivemongo.web.fn.BeerRouterConfig.BEER_PATH;
+import static com.myproject.reactivemongo.web.fn.CustomerRouterConfig.CUSTOMER_PATH;
+import static com.myproject.reactivemongo.web.fn.InventoryRouterConfig.INVENTORY_PATH;
+
 @Configuration
 @EnableWebFluxSecurity
 public class SpringSecConfig {
 
+    private static final String[] BEER_PATHS = {BEER_PATH, BEER_PATH + "/**", INVENTORY_PATH + "/**"};
+    private static final String[] CUSTOMER_PATHS = {CUSTOMER_PATH, CUSTOMER_PATH + "/**"};
+
     @Bean
-    SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+    SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http,
+                                                     ScopeAuthenticationConverter scopeAuthenticationConverter) {
         http
                 .authorizeExchange(exchanges -> exchanges
+                        .matchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class)).permitAll()
+                        .pathMatchers(HttpMethod.GET, BEER_PATHS).access(anyScope(BEER_READ))
+                        .pathMatchers(HttpMethod.POST, BEER_PATHS).access(anyScope(BEER_WRITE))
+                        .pathMatchers(HttpMethod.PUT, BEER_PATHS).access(anyScope(BEER_WRITE))
+                        .pathMatchers(HttpMethod.PATCH, BEER_PATHS).access(anyScope(BEER_WRITE))
+                        .pathMatchers(HttpMethod.DELETE, BEER_PATHS).access(anyScope(BEER_WRITE))
+                        .pathMatchers(HttpMethod.GET, CUSTOMER_PATHS).access(anyScope(CUSTOMER_READ, CUSTOMER_ADMIN))
+                        .pathMatchers(HttpMethod.POST, CUSTOMER_PATHS).access(anyScope(CUSTOMER_WRITE, CUSTOMER_ADMIN))
+                        .pathMatchers(HttpMethod.PUT, CUSTOMER_PATHS).access(anyScope(CUSTOMER_WRITE, CUSTOMER_ADMIN))
+                        .pathMatchers(HttpMethod.PATCH, CUSTOMER_PATHS).access(anyScope(CUSTOMER_WRITE, CUSTOMER_ADMIN))
+                        .pathMatchers(HttpMethod.DELETE, CUSTOMER_PATHS).access(anyScope(CUSTOMER_ADMIN))
                         .anyExchange().authenticated()
                 )
-                .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
+                .oauth2ResourceServer(oauth2 -> oauth2
+                        .jwt(jwt -> jwt.jwtAuthenticationConverter(scopeAuthenticationConverter)))
                 .csrf(ServerHttpSecurity.CsrfSpec::disable);
 
         return http.build();
@@ -9,30 +9,70 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Document
+@CompoundIndex(name = "beerStyle_id", def = "{'beerStyle': 1, '_id': 1}", background = true)
+@CompoundIndex(name = "beerStyle_price", def = "{'beerStyle': 1, 'price': 1}", background = true)
+@CompoundIndex(name = "beerStyle_quantityOnHand", def = "{'beerStyle': 1, 'quantityOnHand': 1}", background = true)
 public class Beer {
 
     @Id
     private String id;
+
+    @Indexed(background = true)
+    @TextIndexed(weight = 3)
     private String beerName;
+
+    @TextIndexed
     private String beerStyle;
+
+    /**
+     * Lower-cased beerName kept by {@code MongoEntityListener} and the service updates, so prefix
+     * lookups run as an anchored range scan over this index instead of a case-insensitive regex.
+     */
+    @Indexed(background = true)
+    private String searchName;
+
+    @Indexed(unique = true, background = true)
     private String upc;
+
+    @Indexed(background = true)
     private Integer quantityOnHand;
+
+    /**
+     * Stored as Decimal128 so price ranges and sorts compare numerically.
+     */
+    @Indexed(background = true)
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
 
     @CreatedDate
     private Instant createdDate;
 
     @LastModifiedDate
+    @Indexed(background = true)
     private Instant lastModifiedDate;
+
+    @Version
+    private Long version;
+
+    public static String searchNameOf(String beerName) {
+        return beerName != null ? beerName.toLowerCase(Locale.ROOT) : null;
+    }
 }
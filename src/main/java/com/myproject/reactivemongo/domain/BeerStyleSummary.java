@@ -0,0 +1,41 @@
+package com.myproject.reactivemongo.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+
+/**
+ * Per style totals over the beer collection, kept up to date by the beer write paths.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document("beerStyleSummary")
+public class BeerStyleSummary {
+
+    /**
+     * Key of the summary for beers without a style, which have no style to use as the id.
+     */
+    public static final String UNKNOWN_STYLE = "UNKNOWN";
+
+    @Id
+    private String beerStyle;
+
+    private long beerCount;
+    private long totalQuantityOnHand;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal stockValue;
+
+    public static String styleOf(String beerStyle) {
+        return beerStyle != null ? beerStyle : UNKNOWN_STYLE;
+    }
+}
@@ -8,6 +8,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -17,6 +19,7 @@ import java.time.Instant;
 @AllArgsConstructor
 @Builder
 @Document
+@CompoundIndex(name = "customerName_id", def = "{'customerName': 1, '_id': 1}", background = true)
 public class Customer {
 
     @Id
@@ -30,4 +33,7 @@ public class Customer {
 
     @LastModifiedDate
     private Instant lastModifiedDate;
+
+    @Version
+    private Long version;
 }
@@ -0,0 +1,42 @@
+package com.myproject.reactivemongo.listeners;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times how long operations wait to check a connection out of the driver pool, tagged by server and
+ * outcome. A growing checkout time is the first sign of pool starvation.
+ */
+@RequiredArgsConstructor
+public class ConnectionCheckoutListener implements ConnectionPoolListener {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        record(event.getConnectionId().getServerId(), "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        record(event.getServerId(), event.getReason().name().toLowerCase(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void record(ServerId serverId, String outcome, long elapsedNanos) {
+
+        Timer.builder("mongodb.driver.pool.checkout")
+                .description("Time spent waiting to check a connection out of the pool")
+                .tag("cluster.id", serverId.getClusterId().getValue())
+                .tag("server.address", serverId.getAddress().toString())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -20,6 +20,7 @@ public class MongoEntityListener extends AbstractMongoEventListener<Object> {
                 beer.setCreatedDate(Instant.now());
             }
             beer.setLastModifiedDate(Instant.now());
+            beer.setSearchName(Beer.searchNameOf(beer.getBeerName()));
 
         } else if (source instanceof Customer customer) {
 
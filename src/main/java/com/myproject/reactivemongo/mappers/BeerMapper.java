@@ -3,10 +3,12 @@ package com.myproject.reactivemongo.mappers;
 import com.myproject.reactivemongo.domain.Beer;
 import com.myproject.reactivemongo.model.BeerDTO;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper
 public interface BeerMapper {
 
+    @Mapping(target = "searchName", ignore = true)
     Beer beerDtoToBeer(BeerDTO beerDTO);
     BeerDTO beerToBeerDto(Beer beer);
 }
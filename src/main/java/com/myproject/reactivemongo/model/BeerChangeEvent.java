@@ -0,0 +1,33 @@
+package com.myproject.reactivemongo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BeerChangeEvent {
+
+    /**
+     * Operation type of an update or replacement after which the beer no longer matches the feed's
+     * filters.
+     */
+    public static final String EXIT = "exit";
+
+    @JsonIgnore
+    private String resumeToken;
+
+    private String operationType;
+    private String beerId;
+    private BeerDTO beer;
+    private List<String> updatedFields;
+    private List<String> removedFields;
+}
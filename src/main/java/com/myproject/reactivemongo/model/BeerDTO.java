@@ -39,4 +39,6 @@ public class BeerDTO {
 
     @LastModifiedDate
     private Instant lastModifiedDate;
+
+    private Long version;
 }
\ No newline at end of file
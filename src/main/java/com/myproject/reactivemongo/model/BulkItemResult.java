@@ -0,0 +1,25 @@
+package com.myproject.reactivemongo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkItemResult {
+
+    public enum Status {
+        CREATED, UPDATED, INVALID, FAILED
+    }
+
+    private long index;
+    private String upc;
+    private String id;
+    private Status status;
+    private List<String> errors;
+}
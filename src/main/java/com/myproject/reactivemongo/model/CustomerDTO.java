@@ -22,4 +22,5 @@ public class CustomerDTO {
     private String customerName;
     private Instant createdDate;
     private Instant lastModifiedDate;
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.myproject.reactivemongo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StyleInventory {
+
+    private String beerStyle;
+    private long beerCount;
+    private long totalQuantityOnHand;
+    private BigDecimal stockValue;
+}
@@ -0,0 +1,72 @@
+package com.myproject.reactivemongo.queryplan;
+
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * Summary of an {@code explain} result. The stage is the access stage at the leaf of the winning plan,
+ * e.g. {@code IXSCAN}, {@code IDHACK} or {@code COLLSCAN}. The examined and returned counts are only
+ * known for {@code executionStats} verbosity.
+ */
+public record QueryPlan(String stage, boolean hasExecutionStats, long keysExamined, long docsExamined,
+                        long returned) {
+
+    public static final String COLLECTION_SCAN = "COLLSCAN";
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    public boolean isCollectionScan() {
+        return COLLECTION_SCAN.equals(stage);
+    }
+
+    public double docsExaminedPerReturned() {
+        return (double) docsExamined / Math.max(1, returned);
+    }
+
+    public static QueryPlan from(Document explain) {
+
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        Document winningPlan = queryPlanner != null ? queryPlanner.get("winningPlan", Document.class) : null;
+
+        // slot based execution nests the classic plan tree under queryPlan
+        if (winningPlan != null && winningPlan.containsKey("queryPlan")) {
+            winningPlan = winningPlan.get("queryPlan", Document.class);
+        }
+
+        Document executionStats = explain.get("executionStats", Document.class);
+
+        return new QueryPlan(
+                winningPlan != null ? accessStage(winningPlan) : UNKNOWN,
+                executionStats != null,
+                executionStats != null ? count(executionStats, "totalKeysExamined") : 0,
+                executionStats != null ? count(executionStats, "totalDocsExamined") : 0,
+                executionStats != null ? count(executionStats, "nReturned") : 0);
+    }
+
+    private static String accessStage(Document stage) {
+
+        Document input = stage.get("inputStage", Document.class);
+
+        if (input != null) {
+            return accessStage(input);
+        }
+
+        List<Document> inputs = stage.getList("inputStages", Document.class);
+
+        if (inputs != null && !inputs.isEmpty()) {
+            return inputs.stream()
+                    .map(QueryPlan::accessStage)
+                    .filter(COLLECTION_SCAN::equals)
+                    .findFirst()
+                    .orElseGet(() -> accessStage(inputs.get(0)));
+        }
+
+        return stage.getString("stage") != null ? stage.getString("stage") : UNKNOWN;
+    }
+
+    private static long count(Document stats, String key) {
+        Number value = stats.get(key, Number.class);
+        return value != null ? value.longValue() : 0;
+    }
+}
@@ -0,0 +1,296 @@
+package com.myproject.reactivemongo.queryplan;
+
+import com.mongodb.ExplainVerbosity;
+import com.myproject.reactivemongo.config.QueryPlanGuardProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reactive template that explains a sample of the filtered or sorted queries it runs, records the
+ * winning access stage, and in strict mode rejects queries that resolve to a collection scan on
+ * collections above the configured size. Unfiltered, unsorted reads are full scans by intent and are
+ * not sampled.
+ * <p>
+ * By default the explain only asks the query planner, which costs one extra round trip per sampled
+ * query. With execution stats the sampled query is run a second time to also record the keys and
+ * documents examined, and strict mode then rejects queries that examine too many documents per
+ * document returned.
+ */
+@Slf4j
+public class QueryPlanGuardingMongoTemplate extends ReactiveMongoTemplate {
+
+    private final QueryPlanGuardProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final QueryMapper queryMapper;
+
+    public QueryPlanGuardingMongoTemplate(ReactiveMongoDatabaseFactory databaseFactory, MongoConverter converter,
+                                          QueryPlanGuardProperties properties, MeterRegistry meterRegistry) {
+        super(databaseFactory, converter);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.queryMapper = new QueryMapper(converter);
+    }
+
+    @Override
+    public <T> Flux<T> find(Query query, Class<T> entityClass, String collectionName) {
+        return checkPlan(query, entityClass, collectionName)
+                .thenMany(Flux.defer(() -> super.find(query, entityClass, collectionName)));
+    }
+
+    @Override
+    public <T> Mono<T> findOne(Query query, Class<T> entityClass, String collectionName) {
+        return checkPlan(query, entityClass, collectionName)
+                .then(Mono.defer(() -> super.findOne(query, entityClass, collectionName)));
+    }
+
+    @Override
+    public Mono<Long> count(Query query, @Nullable Class<?> entityClass, String collectionName) {
+        return checkPlan(query, entityClass, collectionName)
+                .then(Mono.defer(() -> super.count(query, entityClass, collectionName)));
+    }
+
+    @Override
+    public Mono<Boolean> exists(Query query, @Nullable Class<?> entityClass, String collectionName) {
+        return checkPlan(query, entityClass, collectionName)
+                .then(Mono.defer(() -> super.exists(query, entityClass, collectionName)));
+    }
+
+    @Override
+    public <T> ReactiveFind<T> query(Class<T> domainType) {
+        return new GuardedReactiveFind<>(super.query(domainType), domainType, getCollectionName(domainType));
+    }
+
+    private Mono<Void> checkPlan(Query query, @Nullable Class<?> entityClass, String collectionName) {
+
+        return Mono.defer(() -> {
+            if (!isSampled(query)) {
+                return Mono.empty();
+            }
+
+            MongoPersistentEntity<?> entity = entityClass != null
+                    ? getConverter().getMappingContext().getPersistentEntity(entityClass)
+                    : null;
+            Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+            Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+
+            Mono<Void> check = explain(collectionName, filter, sort, query.getLimit())
+                    .doOnNext(plan -> record(collectionName, filter, sort, plan))
+                    .filter(plan -> properties.isStrict())
+                    .flatMap(plan -> violation(collectionName, plan))
+                    .flatMap(violation -> Mono.<Void>error(new InvalidDataAccessApiUsageException(
+                            "Query on " + collectionName + " " + violation + ": " + filter.toJson())))
+                    .onErrorResume(ex -> !(ex instanceof InvalidDataAccessApiUsageException), ex -> {
+                        log.debug("Could not explain query on {}", collectionName, ex);
+                        return Mono.empty();
+                    });
+
+            if (properties.isStrict()) {
+                return check;
+            }
+
+            check.subscribe();
+            return Mono.empty();
+        });
+    }
+
+    private boolean isSampled(Query query) {
+
+        if (query.getQueryObject().isEmpty() && query.getSortObject().isEmpty()) {
+            return false;
+        }
+        return ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+    }
+
+    Mono<QueryPlan> explain(String collectionName, Document filter, Document sort, int limit) {
+
+        ExplainVerbosity verbosity = properties.isExecutionStats()
+                ? ExplainVerbosity.EXECUTION_STATS
+                : ExplainVerbosity.QUERY_PLANNER;
+
+        return getCollection(collectionName)
+                .flatMap(collection -> Mono.from(collection.find(filter)
+                        .sort(sort)
+                        .limit(limit)
+                        .explain(Document.class, verbosity)))
+                .map(QueryPlan::from);
+    }
+
+    /**
+     * Why strict mode rejects the plan, or empty when it does not. Collections below the scan
+     * threshold are never rejected.
+     */
+    private Mono<String> violation(String collectionName, QueryPlan plan) {
+
+        String violation = null;
+
+        if (plan.isCollectionScan()) {
+            violation = "resolves to a collection scan";
+        } else if (plan.hasExecutionStats()
+                && plan.docsExaminedPerReturned() > properties.getMaxDocsExaminedPerReturned()) {
+            violation = "examines " + plan.docsExamined() + " documents for " + plan.returned() + " returned";
+        }
+
+        if (violation == null) {
+            return Mono.empty();
+        }
+
+        String message = violation;
+        return estimatedCount(collectionName)
+                .filter(size -> size >= properties.getCollectionScanThreshold())
+                .map(size -> message);
+    }
+
+    private void record(String collectionName, Document filter, Document sort, QueryPlan plan) {
+
+        Counter.builder("mongo.query.plan.explained")
+                .tags("collection", collectionName, "stage", plan.stage())
+                .register(meterRegistry)
+                .increment();
+
+        if (plan.hasExecutionStats()) {
+            DistributionSummary.builder("mongo.query.plan.keys.examined")
+                    .tags("collection", collectionName, "stage", plan.stage())
+                    .register(meterRegistry)
+                    .record(plan.keysExamined());
+
+            DistributionSummary.builder("mongo.query.plan.docs.examined")
+                    .tags("collection", collectionName, "stage", plan.stage())
+                    .register(meterRegistry)
+                    .record(plan.docsExamined());
+        }
+
+        String examined = plan.hasExecutionStats()
+                ? ", " + plan.keysExamined() + " keys and " + plan.docsExamined() + " documents examined"
+                : "";
+
+        if (plan.isCollectionScan()) {
+            log.warn("Query on {} with filter {} and sort {} resolves to a collection scan{}",
+                    collectionName, filter.toJson(), sort.toJson(), examined);
+        } else {
+            log.debug("Query on {} with filter {} uses {}{}", collectionName, filter.toJson(), plan.stage(), examined);
+        }
+    }
+
+    private class GuardedTerminatingFind<T> implements TerminatingFind<T> {
+
+        private final TerminatingFind<T> delegate;
+        protected final Class<?> domainType;
+        protected final String collectionName;
+        private final Query query;
+
+        GuardedTerminatingFind(TerminatingFind<T> delegate, Class<?> domainType, String collectionName, Query query) {
+            this.delegate = delegate;
+            this.domainType = domainType;
+            this.collectionName = collectionName;
+            this.query = query;
+        }
+
+        @Override
+        public Mono<T> one() {
+            return checkPlan(query, domainType, collectionName).then(Mono.defer(delegate::one));
+        }
+
+        @Override
+        public Mono<T> first() {
+            return checkPlan(query, domainType, collectionName).then(Mono.defer(delegate::first));
+        }
+
+        @Override
+        public Flux<T> all() {
+            return checkPlan(query, domainType, collectionName).thenMany(Flux.defer(delegate::all));
+        }
+
+        @Override
+        public Mono<Window<T>> scroll(ScrollPosition scrollPosition) {
+            return checkPlan(query, domainType, collectionName).then(Mono.defer(() -> delegate.scroll(scrollPosition)));
+        }
+
+        @Override
+        public Flux<T> tail() {
+            return delegate.tail();
+        }
+
+        @Override
+        public Mono<Long> count() {
+            return checkPlan(query, domainType, collectionName).then(Mono.defer(delegate::count));
+        }
+
+        @Override
+        public Mono<Boolean> exists() {
+            return checkPlan(query, domainType, collectionName).then(Mono.defer(delegate::exists));
+        }
+    }
+
+    private class GuardedFindWithQuery<T> extends GuardedTerminatingFind<T> implements FindWithQuery<T> {
+
+        private final FindWithQuery<T> delegate;
+
+        GuardedFindWithQuery(FindWithQuery<T> delegate, Class<?> domainType, String collectionName) {
+            super(delegate, domainType, collectionName, new Query());
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TerminatingFind<T> matching(Query query) {
+            return new GuardedTerminatingFind<>(delegate.matching(query), domainType, collectionName, query);
+        }
+
+        @Override
+        public TerminatingFindNear<T> near(NearQuery nearQuery) {
+            return delegate.near(nearQuery);
+        }
+    }
+
+    private class GuardedFindWithProjection<T> extends GuardedFindWithQuery<T> implements FindWithProjection<T> {
+
+        private final FindWithProjection<T> delegate;
+
+        GuardedFindWithProjection(FindWithProjection<T> delegate, Class<?> domainType, String collectionName) {
+            super(delegate, domainType, collectionName);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <R> FindWithQuery<R> as(Class<R> resultType) {
+            return new GuardedFindWithQuery<>(delegate.as(resultType), domainType, collectionName);
+        }
+
+        @Override
+        public TerminatingDistinct<Object> distinct(String field) {
+            return delegate.distinct(field);
+        }
+    }
+
+    private class GuardedReactiveFind<T> extends GuardedFindWithProjection<T> implements ReactiveFind<T> {
+
+        private final ReactiveFind<T> delegate;
+
+        GuardedReactiveFind(ReactiveFind<T> delegate, Class<?> domainType, String collectionName) {
+            super(delegate, domainType, collectionName);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public FindWithProjection<T> inCollection(String collection) {
+            return new GuardedFindWithProjection<>(delegate.inCollection(collection), domainType, collection);
+        }
+    }
+}
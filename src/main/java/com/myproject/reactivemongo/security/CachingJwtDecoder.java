@@ -0,0 +1,202 @@
+package com.myproject.reactivemongo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.myproject.reactivemongo.config.JwtDecoderProperties;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies bearer tokens against the in-memory keys of {@link JwkSetCache}, so no request waits for
+ * the issuer. A token whose signature has been verified is remembered until it expires and is only
+ * re-validated for expiry, issuer and audience on later requests, unless its key has since been
+ * removed from the JWK set. A token signed with an unknown key is rejected and triggers a key refresh.
+ */
+@Component
+public class CachingJwtDecoder implements ReactiveJwtDecoder {
+
+    static final String CACHE_NAME = "jwt.verified";
+
+    private final JwkSetCache jwkSetCache;
+    private final DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+    private final MappedJwtClaimSetConverter claimSetConverter = MappedJwtClaimSetConverter.withDefaults(Map.of());
+    private final OAuth2TokenValidator<Jwt> validator;
+    private final Cache<String, Verified> verified;
+
+    /**
+     * A token with a verified signature and the id of the key that verified it.
+     */
+    private record Verified(Jwt jwt, String keyId) {
+    }
+
+    public CachingJwtDecoder(JwkSetCache jwkSetCache, JwtDecoderProperties properties,
+                             OAuth2ResourceServerProperties resourceServer, ObjectProvider<MeterRegistry> meterRegistry) {
+
+        this.jwkSetCache = jwkSetCache;
+
+        OAuth2ResourceServerProperties.Jwt jwt = resourceServer.getJwt();
+        Set<JWSAlgorithm> algorithms = jwt.getJwsAlgorithms().stream()
+                .map(JWSAlgorithm::parse)
+                .collect(Collectors.toSet());
+
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, this::select));
+        // expiry and the other claims are checked by the validator on every request, cached or not
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        this.validator = validator(jwt);
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(properties.getVerifiedTokensMaximumSize())
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, verified, CACHE_NAME));
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) throws JwtException {
+
+        try {
+            Verified entry = verified.getIfPresent(token);
+
+            if (entry == null || !isKeyPresent(entry.keyId())) {
+                entry = verify(token);
+
+                if (entry.jwt().getExpiresAt() != null) {
+                    verified.put(token, entry);
+                }
+            }
+            return Mono.just(validate(entry.jwt()));
+        } catch (JwtException e) {
+            return Mono.error(e);
+        }
+    }
+
+    private Verified verify(String token) {
+
+        try {
+            JWT parsed = JWTParser.parse(token);
+            JWTClaimsSet claims = processor.process(parsed, null);
+
+            Jwt jwt = Jwt.withTokenValue(token)
+                    .headers(headers -> headers.putAll(parsed.getHeader().toJSONObject()))
+                    .claims(values -> values.putAll(claimSetConverter.convert(claims.getClaims())))
+                    .build();
+
+            String keyId = parsed instanceof SignedJWT signed ? signed.getHeader().getKeyID() : null;
+            return new Verified(jwt, keyId);
+        } catch (ParseException e) {
+            throw new BadJwtException("An error occurred while attempting to decode the Jwt: Malformed token", e);
+        } catch (BadJOSEException e) {
+            throw new BadJwtException("Failed to validate the token", e);
+        } catch (JOSEException e) {
+            throw new JwtException("Failed to validate the token", e);
+        }
+    }
+
+    private Jwt validate(Jwt jwt) {
+
+        OAuth2TokenValidatorResult result = validator.validate(jwt);
+
+        if (result.hasErrors()) {
+            String description = result.getErrors().iterator().next().getDescription();
+            throw new JwtValidationException("An error occurred while attempting to decode the Jwt: " + description,
+                    result.getErrors());
+        }
+        return jwt;
+    }
+
+    private List<JWK> select(JWKSelector selector, SecurityContext context) {
+
+        List<JWK> keys = selector.select(jwkSetCache.keys());
+
+        if (keys.isEmpty()) {
+            jwkSetCache.requestRefresh();
+        }
+        return keys;
+    }
+
+    private boolean isKeyPresent(String keyId) {
+        return keyId == null || jwkSetCache.keys().getKeyByKeyId(keyId) != null;
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, Verified> {
+
+        @Override
+        public long expireAfterCreate(String token, Verified value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.jwt().getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Verified value, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, Verified value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * Same checks as the issuer-uri decoder: timestamps, the issuer and, when configured, the audience.
+     */
+    private static OAuth2TokenValidator<Jwt> validator(OAuth2ResourceServerProperties.Jwt jwt) {
+
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+
+        validators.add(StringUtils.hasText(jwt.getIssuerUri())
+                ? JwtValidators.createDefaultWithIssuer(jwt.getIssuerUri())
+                : JwtValidators.createDefault());
+
+        List<String> audiences = jwt.getAudiences();
+
+        if (!audiences.isEmpty()) {
+            validators.add(new JwtClaimValidator<Collection<String>>(JwtClaimNames.AUD,
+                    aud -> aud != null && !Collections.disjoint(aud, audiences)));
+        }
+        return new DelegatingOAuth2TokenValidator<>(validators);
+    }
+}
@@ -0,0 +1,187 @@
+package com.myproject.reactivemongo.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.myproject.reactivemongo.config.JwtDecoderProperties;
+import com.nimbusds.jose.jwk.JWKSet;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The issuer's JWK set, fetched in the background and served from memory. Requests never wait for
+ * the issuer: keys are refreshed on a schedule and ahead of expiry, expired keys keep being served
+ * while refreshes fail, and a local JWK set covers startup while the issuer cannot be reached.
+ */
+@Slf4j
+@Component
+public class JwkSetCache {
+
+    private static final String OPENID_CONFIGURATION = "/.well-known/openid-configuration";
+
+    private final JwtDecoderProperties properties;
+    private final OAuth2ResourceServerProperties.Jwt jwt;
+    private final WebClient webClient;
+    private final JWKSet fallback;
+
+    private final AtomicReference<Fetched> fetched = new AtomicReference<>();
+    private final AtomicReference<String> jwkSetUri = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Instant lastRefresh = Instant.EPOCH;
+
+    private final Disposable.Swap schedule = Disposables.swap();
+
+    private record Fetched(JWKSet jwkSet, Instant fetchedAt) {
+    }
+
+    public JwkSetCache(JwtDecoderProperties properties, OAuth2ResourceServerProperties resourceServer,
+                       WebClient.Builder webClientBuilder) {
+        this.properties = properties;
+        this.jwt = resourceServer.getJwt();
+        this.webClient = webClientBuilder.build();
+        this.fallback = load(properties.getFallbackJwkSet());
+        this.jwkSetUri.set(jwt.getJwkSetUri());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+
+        if (!StringUtils.hasText(jwt.getJwkSetUri()) && !StringUtils.hasText(jwt.getIssuerUri())) {
+            return;
+        }
+
+        schedule.update(Flux.interval(Duration.ZERO, properties.getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh())
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        schedule.dispose();
+    }
+
+    /**
+     * The keys to verify with right now. Never blocks; starts a background refresh when the keys are
+     * close to expiry or past it.
+     */
+    public JWKSet keys() {
+
+        Fetched current = fetched.get();
+
+        if (current == null) {
+            requestRefresh();
+            return fallback;
+        }
+
+        Duration age = Duration.between(current.fetchedAt(), Instant.now());
+
+        if (age.compareTo(properties.getJwkSetTtl().minus(properties.getRefreshAhead())) >= 0) {
+            requestRefresh();
+        }
+
+        if (age.compareTo(properties.getJwkSetTtl().plus(properties.getMaxStale())) > 0) {
+            return fallback;
+        }
+        return current.jwkSet();
+    }
+
+    /**
+     * Refreshes in the background unless a refresh is running or one ran within the minimum interval.
+     */
+    public void requestRefresh() {
+
+        if (Duration.between(lastRefresh, Instant.now()).compareTo(properties.getMinRefreshInterval()) >= 0) {
+            refresh().subscribe();
+        }
+    }
+
+    Mono<Void> refresh() {
+        return Mono.defer(() -> refreshing.compareAndSet(false, true) ? fetch() : Mono.empty());
+    }
+
+    private Mono<Void> fetch() {
+
+        return jwkSetUri()
+                .flatMap(uri -> webClient.get()
+                        .uri(uri)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .timeout(properties.getFetchTimeout())
+                .map(JwkSetCache::parse)
+                .doOnNext(jwkSet -> fetched.set(new Fetched(jwkSet, Instant.now())))
+                .onErrorResume(ex -> {
+                    log.warn("Refreshing the JWK set failed, keeping the current keys: {}", ex.toString());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> {
+                    lastRefresh = Instant.now();
+                    refreshing.set(false);
+                })
+                .then();
+    }
+
+    /**
+     * The configured JWK set URI, or the one the issuer advertises in its OpenID configuration.
+     */
+    private Mono<String> jwkSetUri() {
+
+        String uri = jwkSetUri.get();
+
+        if (uri != null) {
+            return Mono.just(uri);
+        }
+
+        return webClient.get()
+                .uri(UriComponentsBuilder.fromUriString(jwt.getIssuerUri()).path(OPENID_CONFIGURATION).build().toUri())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(configuration -> configuration.path("jwks_uri").asText(null))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Issuer advertises no jwks_uri")))
+                .doOnNext(jwkSetUri::set);
+    }
+
+    private static JWKSet load(Resource resource) {
+
+        if (resource == null) {
+            return new JWKSet();
+        }
+
+        try (InputStream in = resource.getInputStream()) {
+            return parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the fallback JWK set " + resource, e);
+        }
+    }
+
+    private static JWKSet parse(String json) {
+
+        try {
+            return JWKSet.parse(json);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid JWK set: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.myproject.reactivemongo.security;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the granted scopes from the {@code scope} or {@code scp} claim, either a space separated
+ * string or a list, once per request.
+ */
+@Component
+public class ScopeAuthenticationConverter implements Converter<Jwt, Mono<AbstractAuthenticationToken>> {
+
+    private static final List<String> SCOPE_CLAIMS = List.of("scope", "scp");
+
+    @Override
+    public Mono<AbstractAuthenticationToken> convert(Jwt jwt) {
+        return Mono.just(new ScopedAuthenticationToken(jwt, authorities(jwt)));
+    }
+
+    static Set<String> authorities(Jwt jwt) {
+
+        Object scopes = SCOPE_CLAIMS.stream()
+                .map(jwt::getClaim)
+                .filter(claim -> claim != null)
+                .findFirst()
+                .orElse(null);
+
+        Stream<String> names;
+
+        if (scopes instanceof String value) {
+            names = Arrays.stream(value.split(" "));
+        } else if (scopes instanceof Collection<?> values) {
+            names = values.stream().map(String::valueOf);
+        } else {
+            names = Stream.empty();
+        }
+
+        return names.filter(name -> !name.isBlank())
+                .map(name -> Scopes.AUTHORITY_PREFIX + name)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
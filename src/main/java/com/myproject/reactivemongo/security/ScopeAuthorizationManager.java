@@ -0,0 +1,53 @@
+package com.myproject.reactivemongo.security;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grants access when the authentication holds any of the given scopes. The authorities are resolved
+ * once, when the rule is built; for JWT logins the check is a set lookup per scope.
+ */
+public final class ScopeAuthorizationManager implements ReactiveAuthorizationManager<AuthorizationContext> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final List<String> authorities;
+
+    private ScopeAuthorizationManager(List<String> authorities) {
+        this.authorities = authorities;
+    }
+
+    public static ScopeAuthorizationManager anyScope(String... scopes) {
+        return new ScopeAuthorizationManager(Arrays.stream(scopes)
+                .map(scope -> Scopes.AUTHORITY_PREFIX + scope)
+                .toList());
+    }
+
+    @Override
+    public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, AuthorizationContext context) {
+        return authentication
+                .filter(Authentication::isAuthenticated)
+                .map(auth -> isGranted(auth) ? GRANTED : DENIED)
+                .defaultIfEmpty(DENIED);
+    }
+
+    private boolean isGranted(Authentication authentication) {
+
+        if (authentication instanceof ScopedAuthenticationToken token) {
+            return authorities.stream().anyMatch(token::hasAuthority);
+        }
+
+        // other logins, e.g. test users, carry a plain authority collection
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(authorities::contains);
+    }
+}
@@ -0,0 +1,29 @@
+package com.myproject.reactivemongo.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Set;
+
+/**
+ * JWT authentication whose authorities are also kept as an immutable set of names, so route checks
+ * are a hash lookup instead of a scan over the granted authorities.
+ */
+public class ScopedAuthenticationToken extends JwtAuthenticationToken {
+
+    private final Set<String> authorityNames;
+
+    ScopedAuthenticationToken(Jwt jwt, Set<String> authorityNames) {
+        super(jwt, authorityNames.stream().map(SimpleGrantedAuthority::new).toList(), jwt.getSubject());
+        this.authorityNames = authorityNames;
+    }
+
+    public boolean hasAuthority(String authority) {
+        return authorityNames.contains(authority);
+    }
+
+    public Set<String> getAuthorityNames() {
+        return authorityNames;
+    }
+}
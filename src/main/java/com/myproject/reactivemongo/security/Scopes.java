@@ -0,0 +1,24 @@
+package com.myproject.reactivemongo.security;
+
+/**
+ * OAuth2 scopes checked by the API routes. A scope {@code s} in the token becomes the authority
+ * {@code SCOPE_s}.
+ */
+public final class Scopes {
+
+    public static final String AUTHORITY_PREFIX = "SCOPE_";
+
+    public static final String BEER_READ = "beer.read";
+    public static final String BEER_WRITE = "beer.write";
+    public static final String CUSTOMER_READ = "customer.read";
+    public static final String CUSTOMER_WRITE = "customer.write";
+
+    /**
+     * Implies {@link #CUSTOMER_READ} and {@link #CUSTOMER_WRITE}, and is the only scope allowed to
+     * delete customers.
+     */
+    public static final String CUSTOMER_ADMIN = "customer.admin";
+
+    private Scopes() {
+    }
+}
@@ -0,0 +1,9 @@
+package com.myproject.reactivemongo.services;
+
+import com.myproject.reactivemongo.model.BeerChangeEvent;
+import reactor.core.publisher.Flux;
+
+public interface BeerChangeService {
+
+    Flux<BeerChangeEvent> changes(String beerStyle, Integer quantityOnHandBelow, String resumeAfter);
+}
@@ -0,0 +1,224 @@
+package com.myproject.reactivemongo.services;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.mappers.BeerMapper;
+import com.myproject.reactivemongo.model.BeerChangeEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tails the beer change stream. Subscribers asking for the same filters share one upstream cursor;
+ * a subscriber resuming from a token gets its own cursor since it needs events the shared one has passed.
+ * <p>
+ * Filtered feeds also receive updates that touch a filtered field and replacements. When the beer no
+ * longer matches afterwards, the event is sent as {@link BeerChangeEvent#EXIT} so subscribers can drop
+ * it; a subscriber that never held the beer can ignore the exit.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BeerChangeServiceImpl implements BeerChangeService {
+
+    private static final String RESUME_TOKEN_DATA = "_data";
+    private static final Codec<Document> DOCUMENT_CODEC = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final BeerMapper beerMapper;
+
+    private final Map<FeedKey, Flux<BeerChangeEvent>> sharedFeeds = new ConcurrentHashMap<>();
+
+    @Override
+    public Flux<BeerChangeEvent> changes(String beerStyle, Integer quantityOnHandBelow, String resumeAfter) {
+
+        FeedKey key = new FeedKey(beerStyle, quantityOnHandBelow);
+
+        if (resumeAfter != null) {
+            return feed(key, new BsonDocument(RESUME_TOKEN_DATA, new BsonString(resumeAfter)));
+        }
+
+        return sharedFeeds.computeIfAbsent(key, this::sharedFeed);
+    }
+
+    private Flux<BeerChangeEvent> sharedFeed(FeedKey key) {
+
+        AtomicReference<Flux<BeerChangeEvent>> shared = new AtomicReference<>();
+
+        // a subscriber arriving after this feed ended may already have registered its replacement
+        shared.set(feed(key, null)
+                .doFinally(signal -> sharedFeeds.remove(key, shared.get()))
+                .publish()
+                .refCount());
+        return shared.get();
+    }
+
+    private Flux<BeerChangeEvent> feed(FeedKey key, BsonDocument resumeToken) {
+
+        ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+                .filter(new Document("$match", match(key)));
+
+        if (key.hasDocumentFilter()) {
+            options.fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        }
+
+        if (resumeToken != null) {
+            options.resumeAfter(resumeToken);
+        }
+
+        return mongoTemplate.changeStream(mongoTemplate.getCollectionName(Beer.class), options.build(), Beer.class)
+                .mapNotNull(event -> toChangeEvent(event, key));
+    }
+
+    private static Document match(FeedKey key) {
+
+        Document operations = new Document("operationType",
+                new Document("$in", List.of("insert", "update", "replace", "delete")));
+
+        if (!key.hasDocumentFilter()) {
+            return operations;
+        }
+
+        Document documentFilter = new Document();
+
+        if (key.beerStyle() != null) {
+            documentFilter.append("fullDocument.beerStyle", key.beerStyle());
+        }
+
+        if (key.quantityOnHandBelow() != null) {
+            documentFilter.append("fullDocument.quantityOnHand", new Document("$lt", key.quantityOnHandBelow()));
+        }
+
+        List<Document> matches = new ArrayList<>(List.of(
+                new Document("operationType", "delete"),
+                new Document("operationType", "replace"),
+                documentFilter));
+
+        // an update to a filtered field may take a matching beer out of the feed
+        key.filteredFields().forEach(field -> {
+            matches.add(new Document("updateDescription.updatedFields." + field, new Document("$exists", true)));
+            matches.add(new Document("updateDescription.removedFields", field));
+        });
+
+        return new Document("$and", List.of(operations, new Document("$or", matches)));
+    }
+
+    /**
+     * The event to send, or null for a change to a document whose id is not one a beer can have.
+     */
+    private BeerChangeEvent toChangeEvent(ChangeStreamEvent<Beer> event, FeedKey key) {
+
+        ChangeStreamDocument<Document> raw = event.getRaw();
+        String beerId = beerId(raw.getDocumentKey());
+
+        if (beerId == null) {
+            log.warn("Skipping beer {} change for document key {}", event.getOperationType(), raw.getDocumentKey());
+            return null;
+        }
+
+        BeerChangeEvent.BeerChangeEventBuilder builder = BeerChangeEvent.builder()
+                .resumeToken(event.getResumeToken().asDocument().getString(RESUME_TOKEN_DATA).getValue())
+                .operationType(event.getOperationType().getValue())
+                .beerId(beerId);
+
+        switch (event.getOperationType()) {
+            case INSERT -> builder.beer(beerMapper.beerToBeerDto(event.getBody()));
+            case REPLACE, UPDATE -> {
+                Beer beer = event.getBody();
+
+                if (key.hasDocumentFilter() && !key.matches(beer)) {
+                    return builder.operationType(BeerChangeEvent.EXIT).build();
+                }
+
+                UpdateDescription updateDescription = raw.getUpdateDescription();
+
+                if (updateDescription == null) {
+                    builder.beer(beerMapper.beerToBeerDto(beer));
+                    break;
+                }
+
+                BsonDocument updatedFields = updateDescription.getUpdatedFields();
+
+                if (updatedFields != null) {
+                    // the converter reads Documents only
+                    Document fields = DOCUMENT_CODEC.decode(updatedFields.asBsonReader(), DecoderContext.builder().build());
+                    Beer delta = mongoTemplate.getConverter().read(Beer.class, fields);
+                    builder.beer(beerMapper.beerToBeerDto(delta))
+                            .updatedFields(new ArrayList<>(updatedFields.keySet()));
+                }
+                builder.removedFields(updateDescription.getRemovedFields());
+            }
+            default -> {
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Beer ids are stored as ObjectIds, or as strings when a client supplied one that is not an ObjectId.
+     */
+    private static String beerId(BsonDocument documentKey) {
+
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+
+        if (id == null) {
+            return null;
+        }
+
+        return switch (id.getBsonType()) {
+            case OBJECT_ID -> id.asObjectId().getValue().toHexString();
+            case STRING -> id.asString().getValue();
+            default -> null;
+        };
+    }
+
+    private record FeedKey(String beerStyle, Integer quantityOnHandBelow) {
+
+        boolean hasDocumentFilter() {
+            return beerStyle != null || quantityOnHandBelow != null;
+        }
+
+        List<String> filteredFields() {
+
+            List<String> fields = new ArrayList<>();
+
+            if (beerStyle != null) {
+                fields.add("beerStyle");
+            }
+            if (quantityOnHandBelow != null) {
+                fields.add("quantityOnHand");
+            }
+            return fields;
+        }
+
+        /**
+         * Whether the beer as it is now belongs in the feed. A beer deleted before its update was
+         * looked up has no current state and does not.
+         */
+        boolean matches(Beer beer) {
+            return beer != null
+                    && (beerStyle == null || beerStyle.equals(beer.getBeerStyle()))
+                    && (quantityOnHandBelow == null
+                    || (beer.getQuantityOnHand() != null && beer.getQuantityOnHand() < quantityOnHandBelow));
+        }
+    }
+}
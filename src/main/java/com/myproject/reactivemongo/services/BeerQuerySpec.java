@@ -0,0 +1,33 @@
+package com.myproject.reactivemongo.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+/**
+ * Server side filter and sort for beer listings, produced by {@link BeerQuerySpecParser}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BeerQuerySpec {
+
+    public static final BeerQuerySpec ALL = new BeerQuerySpec(List.of(), Sort.unsorted());
+
+    private final List<Criteria> criteria;
+    private final Sort sort;
+
+    public boolean isSorted() {
+        return sort.isSorted();
+    }
+
+    Query toQuery() {
+
+        Query query = new Query();
+        criteria.forEach(query::addCriteria);
+        return query.with(sort);
+    }
+}
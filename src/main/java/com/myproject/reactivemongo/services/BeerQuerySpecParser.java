@@ -0,0 +1,223 @@
+package com.myproject.reactivemongo.services;
+
+import com.myproject.reactivemongo.domain.Beer;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Turns listing query parameters into a {@link BeerQuerySpec}. Sorts are only accepted when an index
+ * declared on {@link Beer} starts with the requested keys, so a sort can never fall back to an
+ * in-memory sort over the whole collection.
+ */
+@Component
+public class BeerQuerySpecParser {
+
+    public static final String BEER_STYLE = "beerStyle";
+    public static final String PRICE_MIN = "priceMin";
+    public static final String PRICE_MAX = "priceMax";
+    public static final String QUANTITY_ON_HAND_BELOW = "quantityOnHandBelow";
+    public static final String NAME_PREFIX = "namePrefix";
+    public static final String MODIFIED_SINCE = "modifiedSince";
+    public static final String SORT = "sort";
+
+    private final MongoPersistentEntity<?> entity;
+    private final List<Document> indexKeys = new ArrayList<>();
+
+    public BeerQuerySpecParser(ReactiveMongoTemplate mongoTemplate) {
+
+        this.entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Beer.class);
+
+        indexKeys.add(new Document("_id", 1));
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Beer.class)
+                .forEach(definition -> indexKeys.add(definition.getIndexKeys()));
+    }
+
+    public BeerQuerySpec parse(MultiValueMap<String, String> params) {
+
+        List<Criteria> criteria = new ArrayList<>();
+
+        List<String> styles = values(params, BEER_STYLE);
+
+        if (styles.size() == 1) {
+            criteria.add(where("beerStyle").is(styles.get(0)));
+        } else if (styles.size() > 1) {
+            criteria.add(where("beerStyle").in(styles));
+        }
+
+        BigDecimal priceMin = decimal(params, PRICE_MIN);
+        BigDecimal priceMax = decimal(params, PRICE_MAX);
+
+        if (priceMin != null && priceMax != null && priceMin.compareTo(priceMax) > 0) {
+            throw new IllegalArgumentException(PRICE_MIN + " must not be greater than " + PRICE_MAX);
+        }
+
+        if (priceMin != null || priceMax != null) {
+            Criteria price = where("price");
+
+            if (priceMin != null) {
+                price.gte(priceMin);
+            }
+            if (priceMax != null) {
+                price.lte(priceMax);
+            }
+            criteria.add(price);
+        }
+
+        String quantityOnHandBelow = params.getFirst(QUANTITY_ON_HAND_BELOW);
+
+        if (quantityOnHandBelow != null) {
+            criteria.add(where("quantityOnHand").lt(integer(QUANTITY_ON_HAND_BELOW, quantityOnHandBelow)));
+        }
+
+        String namePrefix = params.getFirst(NAME_PREFIX);
+
+        if (StringUtils.hasText(namePrefix)) {
+            criteria.add(where("searchName").regex(prefixPattern(namePrefix)));
+        }
+
+        String modifiedSince = params.getFirst(MODIFIED_SINCE);
+
+        if (modifiedSince != null) {
+            criteria.add(where("lastModifiedDate").gte(instant(MODIFIED_SINCE, modifiedSince)));
+        }
+
+        return new BeerQuerySpec(List.copyOf(criteria), sort(params.getFirst(SORT)));
+    }
+
+    private Sort sort(String value) {
+
+        if (!StringUtils.hasText(value)) {
+            return Sort.unsorted();
+        }
+
+        List<Sort.Order> orders = new ArrayList<>();
+        Document keys = new Document();
+
+        for (String token : value.split(",")) {
+            String field = token.trim();
+            Sort.Direction direction = Sort.Direction.ASC;
+
+            if (field.startsWith("-")) {
+                direction = Sort.Direction.DESC;
+                field = field.substring(1);
+            }
+
+            MongoPersistentProperty property = entity.getPersistentProperty(field);
+
+            if (property == null) {
+                throw new IllegalArgumentException("Unknown sort field: " + field);
+            }
+
+            orders.add(new Sort.Order(direction, field));
+            keys.append(property.getFieldName(), direction.isAscending() ? 1 : -1);
+        }
+
+        if (indexKeys.stream().noneMatch(index -> supportsSort(index, keys))) {
+            throw new IllegalArgumentException("No index supports sort: " + value);
+        }
+        return Sort.by(orders);
+    }
+
+    /**
+     * An index supports a sort when the sort keys are a prefix of the index keys, traversed either
+     * forwards or backwards.
+     */
+    private static boolean supportsSort(Document index, Document sort) {
+
+        if (sort.size() > index.size()) {
+            return false;
+        }
+
+        List<Map.Entry<String, Object>> indexEntries = new ArrayList<>(index.entrySet());
+        List<Map.Entry<String, Object>> sortEntries = new ArrayList<>(sort.entrySet());
+        Boolean reversed = null;
+
+        for (int i = 0; i < sortEntries.size(); i++) {
+            Map.Entry<String, Object> indexKey = indexEntries.get(i);
+            Map.Entry<String, Object> sortKey = sortEntries.get(i);
+
+            if (!indexKey.getKey().equals(sortKey.getKey()) || !(indexKey.getValue() instanceof Number direction)) {
+                return false;
+            }
+
+            boolean opposite = direction.intValue() != (Integer) sortKey.getValue();
+
+            if (reversed == null) {
+                reversed = opposite;
+            } else if (reversed != opposite) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> values(MultiValueMap<String, String> params, String name) {
+
+        return params.getOrDefault(name, List.of()).stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .distinct()
+                .toList();
+    }
+
+    private static BigDecimal decimal(MultiValueMap<String, String> params, String name) {
+
+        String value = params.getFirst(name);
+
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + name + ": " + value);
+        }
+    }
+
+    private static Integer integer(String name, String value) {
+
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + name + ": " + value);
+        }
+    }
+
+    private static Instant instant(String name, String value) {
+
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid instant for " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Case-sensitive anchored pattern over the lower-cased {@code searchName}, which Mongo answers
+     * with a bounded index scan.
+     */
+    static String prefixPattern(String prefix) {
+        return "^" + Beer.searchNameOf(prefix).replaceAll("[^\\w\\s]", "\\\\$0");
+    }
+}
@@ -1,18 +1,31 @@
 package com.myproject.reactivemongo.services;
 
 import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.BulkItemResult;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+import java.util.Set;
+
 public interface BeerService {
 
     Flux<BeerDTO> listBeers();
+    Flux<BeerDTO> findBeers(BeerQuerySpec spec, String afterId, int limit);
+    Flux<Map<String, Object>> findBeers(BeerQuerySpec spec, Set<String> fields, String afterId, int limit);
+    Flux<BeerDTO> searchBeers(String text, int page, int size);
+    Flux<BeerDTO> autocompleteBeers(String prefix, int limit);
     Mono<BeerDTO> getById(String beerId);
+    Mono<Map<String, Object>> getById(String beerId, Set<String> fields);
     Mono<BeerDTO> findFirstByBeerName(String beerName);
     Flux<BeerDTO> findByBeerStyle(String beerStyle);
     Mono<BeerDTO> saveBeer(Mono<BeerDTO> beerDTO);
     Mono<BeerDTO> saveBeer(BeerDTO beerDTO);
+    Flux<BulkItemResult> upsertBeers(Map<Long, BeerDTO> beerDTOs);
     Mono<BeerDTO> updateBeer(String beerId, BeerDTO beerDTO);
+    Mono<BeerDTO> updateBeer(String beerId, BeerDTO beerDTO, Long expectedVersion);
     Mono<BeerDTO> patchBeer(String beerId, BeerDTO beerDTO);
+    Mono<BeerDTO> patchBeer(String beerId, BeerDTO beerDTO, Long expectedVersion);
     Mono<Void> deleteBeerById(String beerId);
+    Mono<Void> deleteBeerById(String beerId, Long expectedVersion);
 }
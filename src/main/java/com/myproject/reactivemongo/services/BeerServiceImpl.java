@@ -1,44 +1,135 @@
 package com.myproject.reactivemongo.services;
 
+import com.myproject.reactivemongo.cache.BeerCache;
+import com.myproject.reactivemongo.domain.Beer;
 import com.myproject.reactivemongo.mappers.BeerMapper;
 import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.BulkItemResult;
 import com.myproject.reactivemongo.repositories.BeerRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 @Service
 @RequiredArgsConstructor
 public class BeerServiceImpl implements BeerService {
 
     private final BeerMapper beerMapper;
     private final BeerRepository beerRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final BeerCache beerCache;
+    private final ReadPreference listReadPreference;
+    private final BeerStyleSummaryService styleSummaryService;
 
     @Override
     public Flux<BeerDTO> listBeers() {
 
-        return beerRepository.findAll()
+        return mongoTemplate.find(listQuery(new Query()), Beer.class)
+                .map(beerMapper::beerToBeerDto);
+    }
+
+    @Override
+    public Flux<BeerDTO> findBeers(BeerQuerySpec spec, String afterId, int limit) {
+
+        return mongoTemplate.find(page(spec.toQuery(), spec, afterId, limit), Beer.class)
+                .map(beerMapper::beerToBeerDto);
+    }
+
+    @Override
+    public Flux<Map<String, Object>> findBeers(BeerQuerySpec spec, Set<String> fields, String afterId, int limit) {
+
+        Query query = Projections.include(spec.toQuery(), fields);
+
+        return mongoTemplate.find(page(query, spec, afterId, limit), Beer.class)
+                .map(beer -> Projections.toMap(beer, beerEntity(), fields));
+    }
+
+    @Override
+    public Flux<BeerDTO> searchBeers(String text, int page, int size) {
+
+        return mongoTemplate.find(listQuery(searchQuery(text, page, size)), Beer.class)
+                .map(beerMapper::beerToBeerDto);
+    }
+
+    /**
+     * Best matches first, by the text score the weights of the beer text index give each match.
+     */
+    static Query searchQuery(String text, int page, int size) {
+
+        return TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text))
+                .sortByScore()
+                .with(PageRequest.of(page, size));
+    }
+
+    @Override
+    public Flux<BeerDTO> autocompleteBeers(String prefix, int limit) {
+
+        Query query = query(where("searchName").regex(BeerQuerySpecParser.prefixPattern(prefix)))
+                .with(Sort.by("searchName"))
+                .limit(limit);
+
+        return mongoTemplate.find(listQuery(query), Beer.class)
                 .map(beerMapper::beerToBeerDto);
     }
 
     @Override
     public Mono<BeerDTO> getById(String beerId) {
-        return beerRepository.findById(beerId)
+        return beerCache.getById(beerId, beerRepository::findById)
                 .map(beerMapper::beerToBeerDto);
     }
 
+    @Override
+    public Mono<Map<String, Object>> getById(String beerId, Set<String> fields) {
+
+        return mongoTemplate.findOne(Projections.include(query(where("id").is(beerId)), fields), Beer.class)
+                .map(beer -> Projections.toMap(beer, beerEntity(), fields));
+    }
+
     @Override
     public Mono<BeerDTO> findFirstByBeerName(String beerName) {
-        return beerRepository.findFirstByBeerName(beerName)
+        return beerCache.getByName(beerName, beerRepository::findFirstByBeerName)
                 .map(beerMapper::beerToBeerDto);
     }
 
     @Override
     public Flux<BeerDTO> findByBeerStyle(String beerStyle) {
 
-        return beerRepository.findByBeerStyle(beerStyle)
+        return mongoTemplate.find(listQuery(query(where("beerStyle").is(beerStyle))), Beer.class)
                 .map(beerMapper::beerToBeerDto);
     }
 
@@ -46,67 +137,272 @@ public class BeerServiceImpl implements BeerService {
     public Mono<BeerDTO> saveBeer(Mono<BeerDTO> beerDTO) {
 
         return beerDTO.map(beerMapper::beerDtoToBeer)
-                .flatMap(beerRepository::save)
+                .flatMap(this::save)
+                .doOnNext(savedBeer -> beerCache.evict(savedBeer.getId()))
                 .map(beerMapper::beerToBeerDto);
     }
 
     @Override
     public Mono<BeerDTO> saveBeer(BeerDTO beerDTO) {
 
-        return beerRepository.save(beerMapper.beerDtoToBeer(beerDTO))
+        return save(beerMapper.beerDtoToBeer(beerDTO))
+                .doOnNext(savedBeer -> beerCache.evict(savedBeer.getId()))
                 .map(beerMapper::beerToBeerDto);
     }
 
+    /**
+     * A versioned save only replaces the beer while it is still at that version, so the beer read at
+     * that version is the image it replaced. Any other save is an insert.
+     */
+    private Mono<Beer> save(Beer beer) {
+
+        if (beer.getVersion() == null || beer.getId() == null) {
+            return beerRepository.save(beer).flatMap(saved -> recorded(null, saved));
+        }
+
+        return beerRepository.findById(beer.getId())
+                .filter(before -> beer.getVersion().equals(before.getVersion()))
+                .flatMap(before -> beerRepository.save(beer).flatMap(saved -> recorded(before, saved)))
+                .switchIfEmpty(Mono.defer(() -> beerRepository.save(beer)));
+    }
+
+    @Override
+    public Flux<BulkItemResult> upsertBeers(Map<Long, BeerDTO> beerDTOs) {
+
+        if (beerDTOs.isEmpty()) {
+            return Flux.empty();
+        }
+
+        List<Long> indexes = new ArrayList<>(beerDTOs.keySet());
+        List<BeerDTO> items = new ArrayList<>(beerDTOs.values());
+        Instant now = Instant.now();
+
+        ReactiveBulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Beer.class);
+        items.forEach(item -> bulkOps.upsert(query(where("upc").is(item.getUpc())), upsertOf(item, now)));
+
+        // a bulk write returns no images, so the styles it touches are recomputed instead
+        Query byUpc = query(where("upc").in(items.stream().map(BeerDTO::getUpc).toList()));
+
+        return mongoTemplate.findDistinct(byUpc, "beerStyle", Beer.class, String.class)
+                .collect(Collectors.toCollection(HashSet::new))
+                .flatMap(styles -> bulkOps.execute()
+                        .map(result -> toBulkItemResults(indexes, items, result, List.of()))
+                        .onErrorResume(ex -> bulkWriteException(ex) != null, ex -> {
+                            MongoBulkWriteException bulkEx = bulkWriteException(ex);
+                            return Mono.just(toBulkItemResults(indexes, items, bulkEx.getWriteResult(), bulkEx.getWriteErrors()));
+                        })
+                        .flatMap(results -> {
+                            items.forEach(item -> styles.add(item.getBeerStyle()));
+                            return styleSummaryService.reconcile(styles).thenReturn(results);
+                        }))
+                .doOnTerminate(beerCache::evictAll)
+                .flatMapIterable(results -> results);
+    }
+
+    private static Update upsertOf(BeerDTO beerDTO, Instant now) {
+
+        return new Update()
+                .set("beerName", beerDTO.getBeerName())
+                .set("searchName", Beer.searchNameOf(beerDTO.getBeerName()))
+                .set("beerStyle", beerDTO.getBeerStyle())
+                .set("quantityOnHand", beerDTO.getQuantityOnHand())
+                .set("price", beerDTO.getPrice())
+                .inc("version", 1)
+                .set("lastModifiedDate", now)
+                .setOnInsert("createdDate", now);
+    }
+
+    private static List<BulkItemResult> toBulkItemResults(List<Long> indexes, List<BeerDTO> items,
+                                                          BulkWriteResult result, List<BulkWriteError> writeErrors) {
+
+        Map<Integer, String> upsertedIds = result.getUpserts().stream()
+                .collect(Collectors.toMap(BulkWriteUpsert::getIndex, upsert -> upsert.getId().asObjectId().getValue().toHexString()));
+        Map<Integer, String> errors = writeErrors.stream()
+                .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage));
+
+        List<BulkItemResult> results = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+
+            BulkItemResult.BulkItemResultBuilder builder = BulkItemResult.builder()
+                    .index(indexes.get(i))
+                    .upc(items.get(i).getUpc());
+
+            if (errors.containsKey(i)) {
+                builder.status(BulkItemResult.Status.FAILED).errors(List.of(errors.get(i)));
+            } else if (upsertedIds.containsKey(i)) {
+                builder.status(BulkItemResult.Status.CREATED).id(upsertedIds.get(i));
+            } else {
+                builder.status(BulkItemResult.Status.UPDATED);
+            }
+            results.add(builder.build());
+        }
+        return results;
+    }
+
+    private static MongoBulkWriteException bulkWriteException(Throwable throwable) {
+
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulkWriteException) {
+                return bulkWriteException;
+            }
+        }
+        return null;
+    }
+
     @Override
     public Mono<BeerDTO> updateBeer(String beerId, BeerDTO beerDTO) {
+        return updateBeer(beerId, beerDTO, null);
+    }
+
+    @Override
+    public Mono<BeerDTO> updateBeer(String beerId, BeerDTO beerDTO, Long expectedVersion) {
 
-        return beerRepository.findById(beerId)
-                .map(foundBeer -> {
-                    foundBeer.setBeerName(beerDTO.getBeerName());
-                    foundBeer.setBeerStyle(beerDTO.getBeerStyle());
-                    foundBeer.setPrice(beerDTO.getPrice());
-                    foundBeer.setQuantityOnHand(beerDTO.getQuantityOnHand());
-                    foundBeer.setUpc(beerDTO.getUpc());
+        Update update = new Update()
+                .set("beerName", beerDTO.getBeerName())
+                .set("searchName", Beer.searchNameOf(beerDTO.getBeerName()))
+                .set("beerStyle", beerDTO.getBeerStyle())
+                .set("price", beerDTO.getPrice())
+                .set("quantityOnHand", beerDTO.getQuantityOnHand())
+                .set("upc", beerDTO.getUpc());
 
-                    return foundBeer;
-                }).flatMap(beerRepository::save)
-                .map(beerMapper::beerToBeerDto);
+        return modifyBeer(beerId, expectedVersion, update);
     }
 
     @Override
     public Mono<BeerDTO> patchBeer(String beerId, BeerDTO beerDTO) {
+        return patchBeer(beerId, beerDTO, null);
+    }
 
-        return beerRepository.findById(beerId)
-                .map(foundBeer -> {
+    @Override
+    public Mono<BeerDTO> patchBeer(String beerId, BeerDTO beerDTO, Long expectedVersion) {
 
-                    if (StringUtils.hasText(beerDTO.getBeerName())) {
-                        foundBeer.setBeerName(beerDTO.getBeerName());
-                    }
+        Update update = new Update();
 
-                    if (StringUtils.hasText(beerDTO.getBeerStyle())) {
-                        foundBeer.setBeerStyle(beerDTO.getBeerStyle());
-                    }
+        if (StringUtils.hasText(beerDTO.getBeerName())) {
+            update.set("beerName", beerDTO.getBeerName())
+                    .set("searchName", Beer.searchNameOf(beerDTO.getBeerName()));
+        }
 
-                    if (StringUtils.hasText(beerDTO.getUpc())) {
-                        foundBeer.setUpc(beerDTO.getUpc());
-                    }
+        if (StringUtils.hasText(beerDTO.getBeerStyle())) {
+            update.set("beerStyle", beerDTO.getBeerStyle());
+        }
 
-                    if (beerDTO.getPrice() != null) {
-                        foundBeer.setPrice(beerDTO.getPrice());
-                    }
+        if (StringUtils.hasText(beerDTO.getUpc())) {
+            update.set("upc", beerDTO.getUpc());
+        }
 
-                    if (beerDTO.getQuantityOnHand() != null) {
-                        foundBeer.setQuantityOnHand(beerDTO.getQuantityOnHand());
-                    }
+        if (beerDTO.getPrice() != null) {
+            update.set("price", beerDTO.getPrice());
+        }
 
-                    return foundBeer;
-                }).flatMap(beerRepository::save)
-                .map(beerMapper::beerToBeerDto);
+        if (beerDTO.getQuantityOnHand() != null) {
+            update.set("quantityOnHand", beerDTO.getQuantityOnHand());
+        }
+
+        return modifyBeer(beerId, expectedVersion, update);
+    }
+
+    /**
+     * Returns the beer as it was before the update and applies the update to it in memory, so the style
+     * summary gets both images from the one write.
+     */
+    private Mono<BeerDTO> modifyBeer(String beerId, Long expectedVersion, Update update) {
+
+        update.inc("version", 1).set("lastModifiedDate", Instant.now().truncatedTo(ChronoUnit.MILLIS));
+
+        return mongoTemplate.findAndModify(byIdAndVersion(beerId, expectedVersion), update,
+                        FindAndModifyOptions.options().returnNew(false),
+                        Beer.class)
+                .flatMap(before -> recorded(before, modified(before, update)))
+                .map(beerMapper::beerToBeerDto)
+                .switchIfEmpty(versionConflict(beerId, expectedVersion))
+                .doOnTerminate(() -> beerCache.evict(beerId));
     }
 
     @Override
     public Mono<Void> deleteBeerById(String beerId) {
 
-        return beerRepository.deleteById(beerId);
+        return mongoTemplate.findAndRemove(query(where("id").is(beerId)), Beer.class)
+                .flatMap(before -> styleSummaryService.record(before, null))
+                .doOnTerminate(() -> beerCache.evict(beerId));
+    }
+
+    @Override
+    public Mono<Void> deleteBeerById(String beerId, Long expectedVersion) {
+
+        if (expectedVersion == null) {
+            return deleteBeerById(beerId);
+        }
+
+        return mongoTemplate.findAndRemove(byIdAndVersion(beerId, expectedVersion), Beer.class)
+                .flatMap(before -> styleSummaryService.record(before, null).thenReturn(before))
+                .switchIfEmpty(versionConflict(beerId, expectedVersion))
+                .then()
+                .doOnTerminate(() -> beerCache.evict(beerId));
+    }
+
+    private static Query byIdAndVersion(String beerId, Long expectedVersion) {
+
+        Criteria criteria = where("id").is(beerId);
+
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        return query(criteria);
+    }
+
+    private <T> Mono<T> versionConflict(String beerId, Long expectedVersion) {
+
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+
+        return beerRepository.existsById(beerId)
+                .flatMap(exists -> exists
+                        ? Mono.error(new OptimisticLockingFailureException(
+                                "Beer " + beerId + " is not at version " + expectedVersion))
+                        : Mono.empty());
+    }
+
+    private static Beer modified(Beer before, Update update) {
+
+        Beer after = before.toBuilder().build();
+        DirectFieldAccessor fields = new DirectFieldAccessor(after);
+
+        update.getUpdateObject().get("$set", Document.class).forEach(fields::setPropertyValue);
+        after.setVersion(before.getVersion() != null ? before.getVersion() + 1 : 1);
+        return after;
+    }
+
+    private Mono<Beer> recorded(Beer before, Beer after) {
+        return styleSummaryService.record(before, after).thenReturn(after);
+    }
+
+    private MongoPersistentEntity<?> beerEntity() {
+        return mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Beer.class);
+    }
+
+    private Query listQuery(Query query) {
+        return query.withReadPreference(listReadPreference);
+    }
+
+    /**
+     * Unsorted specs page by id so the cursor can resume them; sorted specs return a single page.
+     */
+    private Query page(Query query, BeerQuerySpec spec, String afterId, int limit) {
+
+        if (spec.isSorted()) {
+            return listQuery(query.limit(limit));
+        }
+        return keysetPage(query, afterId, limit);
+    }
+
+    private Query keysetPage(Query query, String afterId, int limit) {
+
+        if (afterId != null) {
+            query.addCriteria(where("id").gt(new ObjectId(afterId)));
+        }
+        return listQuery(query.with(Sort.by("id")).limit(limit));
     }
 }
@@ -0,0 +1,216 @@
+package com.myproject.reactivemongo.services;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import com.myproject.reactivemongo.config.InventoryProperties;
+import com.myproject.reactivemongo.domain.Beer;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Optional check on the beer style summaries for writes that did not record their own change, such as
+ * another application or a node on an older release writing the beer collection. Tails the beer change
+ * stream and reconciles the styles each change touched, in batches. The style a beer had before an update
+ * or delete is only known when the collection records pre-images, see {@code BeerChangeStreamImagesMigration};
+ * without one only the new style is checked and the rest is left to the periodic reconciler.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "inventory.summary-change-stream", name = "enabled", havingValue = "true")
+public class BeerStyleSummaryListener {
+
+    private static final Set<Integer> HISTORY_LOST_CODES = Set.of(
+            260, // InvalidResumeToken
+            280, // ChangeStreamFatalError
+            286  // ChangeStreamHistoryLost
+    );
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+
+    private static final List<String> SUMMARY_FIELDS = List.of("beerStyle", "price", "quantityOnHand");
+
+    private static final Document MATCH_SUMMARY_CHANGES = new Document("$match", new Document("$or", List.of(
+            new Document("operationType", new Document("$in", List.of("insert", "replace", "delete", "invalidate"))),
+            new Document("operationType", "update").append("$or", touchesSummaryFields()))));
+
+    private static final Document PROJECT_SUMMARY_FIELDS = new Document("$project", projectSummaryFields());
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final BeerStyleSummaryService styleSummaryService;
+    private final InventoryProperties inventoryProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Disposable.Swap subscription = Disposables.swap();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+
+        String collection = mongoTemplate.getCollectionName(Beer.class);
+
+        subscription.update(watch(collection)
+                .flatMapIterable(this::touchedStyles)
+                .bufferTimeout(settings().getBatchSize(), settings().getBatchWindow())
+                .concatMap(styles -> styleSummaryService.reconcile(new HashSet<>(styles))
+                        .onErrorResume(ex -> {
+                            log.warn("Beer style summary reconciliation failed for {}", styles, ex);
+                            return Mono.empty();
+                        }))
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscription.dispose();
+    }
+
+    private Flux<ChangeStreamEvent<Beer>> watch(String collection) {
+
+        AtomicReference<BsonValue> resumeToken = new AtomicReference<>();
+        AtomicBoolean lost = new AtomicBoolean();
+        InventoryProperties.SummaryChangeStream settings = settings();
+
+        return Flux.defer(() -> mongoTemplate.changeStream(collection, options(resumeToken.get()), Beer.class))
+                .doOnNext(event -> {
+                    resumeToken.set(isInvalidate(event) ? null : event.getResumeToken());
+                    // changes made while no stream was open are only found by a reconciliation
+                    if (lost.getAndSet(false) || isInvalidate(event)) {
+                        reconcile();
+                    }
+                })
+                .doOnError(ex -> {
+                    if (hasCode(ex, Set.of(CHANGE_STREAMS_UNSUPPORTED))) {
+                        return;
+                    }
+                    if (resumeToken.get() == null || hasCode(ex, HISTORY_LOST_CODES)) {
+                        log.warn("Change stream on {} lost its position, reconciling beer style summaries", collection, ex);
+                        resumeToken.set(null);
+                        if (!lost.getAndSet(true)) {
+                            reconcile();
+                        }
+                    } else {
+                        log.warn("Change stream on {} failed, resuming from last token", collection, ex);
+                    }
+                })
+                // the backoff starts over once the stream delivers an event again
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, settings.getMinRetryBackoff())
+                        .maxBackoff(settings.getMaxRetryBackoff())
+                        .transientErrors(true)
+                        .filter(ex -> !hasCode(ex, Set.of(CHANGE_STREAMS_UNSUPPORTED))))
+                .repeatWhen(completed -> completed.delayElements(settings.getMinRetryBackoff()))
+                .onErrorResume(ex -> {
+                    log.warn("Change streams are not available on {}, beer style summaries are only reconciled", collection, ex);
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * The styles the beer had before and after the change, as far as the event carries them.
+     */
+    private List<String> touchedStyles(ChangeStreamEvent<Beer> event) {
+
+        OperationType operationType = event.getOperationType();
+        List<String> styles = new ArrayList<>(2);
+
+        if (operationType == OperationType.INVALIDATE) {
+            return styles;
+        }
+
+        if (operationType != OperationType.INSERT) {
+            Beer before = event.getBodyBeforeChange();
+
+            if (before != null) {
+                styles.add(before.getBeerStyle());
+            } else {
+                log.debug("Beer {} change has no pre-image, leaving its previous style to the reconciler", operationType);
+                meterRegistry.counter("inventory.style.summary.unresolved").increment();
+            }
+        }
+
+        Beer after = event.getBody();
+
+        if (after != null && operationType != OperationType.DELETE) {
+            styles.add(after.getBeerStyle());
+        }
+        return styles;
+    }
+
+    private void reconcile() {
+
+        styleSummaryService.reconcile()
+                .subscribe(null, ex -> log.warn("Beer style summary reconciliation failed", ex));
+    }
+
+    private static ChangeStreamOptions options(BsonValue resumeToken) {
+
+        ChangeStreamOptions.ChangeStreamOptionsBuilder builder = ChangeStreamOptions.builder()
+                .filter(MATCH_SUMMARY_CHANGES, PROJECT_SUMMARY_FIELDS)
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                .fullDocumentBeforeChangeLookup(FullDocumentBeforeChange.WHEN_AVAILABLE);
+
+        if (resumeToken != null) {
+            builder.resumeAfter(resumeToken);
+        }
+        return builder.build();
+    }
+
+    private static List<Document> touchesSummaryFields() {
+
+        List<Document> touches = new ArrayList<>();
+        SUMMARY_FIELDS.forEach(field -> touches.add(
+                new Document("updateDescription.updatedFields." + field, new Document("$exists", true))));
+        touches.add(new Document("updateDescription.removedFields", new Document("$in", SUMMARY_FIELDS)));
+        return touches;
+    }
+
+    private static Document projectSummaryFields() {
+
+        Document projection = new Document("operationType", 1).append("documentKey", 1);
+        SUMMARY_FIELDS.forEach(field -> projection
+                .append("fullDocument." + field, 1)
+                .append("fullDocumentBeforeChange." + field, 1));
+        return projection;
+    }
+
+    private InventoryProperties.SummaryChangeStream settings() {
+        return inventoryProperties.getSummaryChangeStream();
+    }
+
+    private static boolean isInvalidate(ChangeStreamEvent<Beer> event) {
+        return event.getOperationType() == OperationType.INVALIDATE;
+    }
+
+    private static boolean hasCode(Throwable throwable, Set<Integer> codes) {
+
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && codes.contains(mongoException.getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
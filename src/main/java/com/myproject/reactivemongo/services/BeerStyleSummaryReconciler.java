@@ -0,0 +1,50 @@
+package com.myproject.reactivemongo.services;
+
+import com.myproject.reactivemongo.config.InventoryProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Reconciles the beer style summaries on startup and then periodically, catching writes that did not
+ * record their change, such as those made outside this service.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "inventory", name = "reconcile-enabled", havingValue = "true", matchIfMissing = true)
+public class BeerStyleSummaryReconciler {
+
+    private final BeerStyleSummaryService styleSummaryService;
+    private final InventoryProperties inventoryProperties;
+
+    private final Disposable.Swap subscription = Disposables.swap();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+
+        subscription.update(Flux.interval(Duration.ZERO, inventoryProperties.getReconcileInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> styleSummaryService.reconcile()
+                        .onErrorResume(ex -> {
+                            log.warn("Beer style summary reconciliation failed", ex);
+                            return Mono.empty();
+                        }))
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscription.dispose();
+    }
+}
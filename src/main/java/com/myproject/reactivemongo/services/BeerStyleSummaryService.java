@@ -0,0 +1,16 @@
+package com.myproject.reactivemongo.services;
+
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.domain.BeerStyleSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface BeerStyleSummaryService {
+
+    Mono<Void> record(Beer before, Beer after);
+    Flux<BeerStyleSummary> summaries();
+    Mono<Long> reconcile();
+    Mono<Long> reconcile(Collection<String> beerStyles);
+}
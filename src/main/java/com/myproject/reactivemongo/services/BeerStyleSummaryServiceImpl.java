@@ -0,0 +1,252 @@
+package com.myproject.reactivemongo.services;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.myproject.reactivemongo.config.InventoryProperties;
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.domain.BeerStyleSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Maintains {@link BeerStyleSummary} documents by applying the difference between the before and
+ * after image of each beer write as {@code $inc} updates. {@link #reconcile()} recomputes the totals
+ * from the beer collection and applies what had drifted, again as {@code $inc}, but only to summaries
+ * still holding the totals it compared against. A summary changed in the meantime, by a recorded write
+ * or another reconciliation, is left for the next run.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BeerStyleSummaryServiceImpl implements BeerStyleSummaryService {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final InventoryProperties inventoryProperties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<Void> record(Beer before, Beer after) {
+
+        Map<String, Delta> deltas = new HashMap<>();
+
+        if (before != null) {
+            deltas.merge(BeerStyleSummary.styleOf(before.getBeerStyle()), Delta.of(before).negate(), Delta::plus);
+        }
+        if (after != null) {
+            deltas.merge(BeerStyleSummary.styleOf(after.getBeerStyle()), Delta.of(after), Delta::plus);
+        }
+        deltas.values().removeIf(Delta::isZero);
+
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        ReactiveBulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BeerStyleSummary.class);
+        deltas.forEach((style, delta) -> bulkOps.upsert(byStyle(style), delta.toUpdate()));
+
+        return bulkOps.execute().then();
+    }
+
+    @Override
+    public Flux<BeerStyleSummary> summaries() {
+        return mongoTemplate.find(query(where("beerCount").gt(0)).with(Sort.by("beerStyle")), BeerStyleSummary.class);
+    }
+
+    @Override
+    public Mono<Long> reconcile() {
+        return reconcile(new Criteria(), new Criteria());
+    }
+
+    @Override
+    public Mono<Long> reconcile(Collection<String> beerStyles) {
+
+        if (beerStyles.isEmpty()) {
+            return Mono.just(0L);
+        }
+        Set<String> styles = beerStyles.stream().map(BeerStyleSummary::styleOf).collect(Collectors.toSet());
+        List<String> beerStylesMatched = new ArrayList<>(styles);
+
+        // beers without a style are summarized under the unknown style
+        if (styles.contains(BeerStyleSummary.UNKNOWN_STYLE)) {
+            beerStylesMatched.add(null);
+        }
+        return reconcile(where("beerStyle").in(beerStylesMatched), where("beerStyle").in(styles));
+    }
+
+    private Mono<Long> reconcile(Criteria beers, Criteria styles) {
+
+        TypedAggregation<Beer> aggregation = newAggregation(Beer.class,
+                match(beers),
+                project("quantityOnHand", "price")
+                        .and(ConditionalOperators.ifNull("beerStyle").then(BeerStyleSummary.UNKNOWN_STYLE)).as("beerStyle"),
+                group("beerStyle")
+                        .count().as("beerCount")
+                        .sum("quantityOnHand").as("totalQuantityOnHand")
+                        .sum(ArithmeticOperators.Multiply.valueOf("price").multiplyBy("quantityOnHand")).as("stockValue"))
+                .withOptions(AggregationOptions.builder()
+                        .allowDiskUse(inventoryProperties.isAllowDiskUse())
+                        .build());
+
+        Mono<Map<String, BeerStyleSummary>> actual = mongoTemplate.aggregate(aggregation, BeerStyleSummary.class)
+                .collectMap(BeerStyleSummary::getBeerStyle);
+        Mono<Map<String, BeerStyleSummary>> stored = mongoTemplate.find(query(styles), BeerStyleSummary.class)
+                .collectMap(BeerStyleSummary::getBeerStyle);
+
+        // read the summaries first: a write recorded before that read is in the aggregation too, and one
+        // recorded after it fails the unchanged check. The other way round, a write recorded between the
+        // two reads would be taken for drift.
+        return stored.flatMap(summaries -> actual.flatMap(totals -> correct(totals, summaries)));
+    }
+
+    private Mono<Long> correct(Map<String, BeerStyleSummary> actual, Map<String, BeerStyleSummary> stored) {
+
+        Set<String> styles = new HashSet<>(actual.keySet());
+        styles.addAll(stored.keySet());
+
+        List<String> changed = styles.stream()
+                .filter(style -> !sameTotals(actual.get(style), stored.get(style)))
+                .toList();
+
+        if (changed.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        ReactiveBulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BeerStyleSummary.class);
+        List<String> missing = changed.stream().filter(style -> !stored.containsKey(style)).toList();
+        List<String> drifted = changed.stream().filter(stored::containsKey).toList();
+
+        if (!missing.isEmpty()) {
+            log.info("Creating beer style summaries for {} style(s): {}", missing.size(), missing);
+            missing.forEach(style -> bulkOps.upsert(byStyle(style), Delta.of(actual.get(style)).toInsert()));
+        }
+
+        if (!drifted.isEmpty()) {
+            log.warn("Beer style summary drifted for {} style(s): {}", drifted.size(), drifted);
+            meterRegistry.counter("inventory.style.summary.drift").increment(drifted.size());
+            drifted.forEach(style -> bulkOps.updateOne(unchanged(stored.get(style)),
+                    difference(actual.get(style), stored.get(style)).toUpdate()));
+        }
+
+        return bulkOps.execute()
+                .then()
+                .onErrorResume(BeerStyleSummaryServiceImpl::alreadyApplied, ex -> Mono.empty())
+                .thenReturn((long) changed.size());
+    }
+
+    private static boolean sameTotals(BeerStyleSummary actual, BeerStyleSummary stored) {
+        return difference(actual, stored).isZero();
+    }
+
+    private static Query unchanged(BeerStyleSummary summary) {
+
+        return byStyle(summary.getBeerStyle())
+                .addCriteria(where("beerCount").is(summary.getBeerCount()))
+                .addCriteria(where("totalQuantityOnHand").is(summary.getTotalQuantityOnHand()))
+                .addCriteria(where("stockValue").is(summary.getStockValue() != null ? new Decimal128(summary.getStockValue()) : null));
+    }
+
+    private static Delta difference(BeerStyleSummary actual, BeerStyleSummary stored) {
+        return Delta.of(actual).plus(Delta.of(stored).negate());
+    }
+
+    private static boolean alreadyApplied(Throwable throwable) {
+
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulkWriteException) {
+                return bulkWriteException.getWriteErrors().stream()
+                        .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            }
+        }
+        return false;
+    }
+
+    private static Query byStyle(String style) {
+        return query(where("beerStyle").is(style));
+    }
+
+    private static BigDecimal valueOf(BigDecimal value) {
+        return Objects.requireNonNullElse(value, BigDecimal.ZERO);
+    }
+
+    private record Delta(long count, long quantity, BigDecimal value) {
+
+        static Delta of(Beer beer) {
+
+            long quantity = beer.getQuantityOnHand() != null ? beer.getQuantityOnHand() : 0;
+            BigDecimal value = beer.getPrice() != null ? beer.getPrice().multiply(BigDecimal.valueOf(quantity)) : BigDecimal.ZERO;
+
+            return new Delta(1, quantity, value);
+        }
+
+        static Delta of(BeerStyleSummary summary) {
+
+            if (summary == null) {
+                return new Delta(0, 0, BigDecimal.ZERO);
+            }
+            return new Delta(summary.getBeerCount(), summary.getTotalQuantityOnHand(), valueOf(summary.getStockValue()));
+        }
+
+        Delta negate() {
+            return new Delta(-count, -quantity, value.negate());
+        }
+
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, quantity + other.quantity, value.add(other.value));
+        }
+
+        boolean isZero() {
+            return count == 0 && quantity == 0 && value.signum() == 0;
+        }
+
+        /**
+         * Sets the totals on a summary being created and leaves one created in the meantime alone.
+         */
+        Update toInsert() {
+            return new Update()
+                    .setOnInsert("beerCount", count)
+                    .setOnInsert("totalQuantityOnHand", quantity)
+                    .setOnInsert("stockValue", new Decimal128(value));
+        }
+
+        Update toUpdate() {
+            return new Update()
+                    .inc("beerCount", count)
+                    .inc("totalQuantityOnHand", quantity)
+                    .inc("stockValue", new Decimal128(value));
+        }
+    }
+}
@@ -4,14 +4,25 @@ import com.myproject.reactivemongo.model.CustomerDTO;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+import java.util.Set;
+
 public interface CustomerService {
 
     Flux<CustomerDTO> listCustomers();
+    Flux<CustomerDTO> listCustomers(String afterId, int limit);
+    Flux<Map<String, Object>> listCustomers(Set<String> fields, String afterId, int limit);
     Mono<CustomerDTO> getCustomerById(String customerId);
+    Mono<Map<String, Object>> getCustomerById(String customerId, Set<String> fields);
     Flux<CustomerDTO> findByCustomerName(String customerName);
+    Flux<CustomerDTO> findByCustomerName(String customerName, String afterId, int limit);
+    Flux<Map<String, Object>> findByCustomerName(String customerName, Set<String> fields, String afterId, int limit);
     Mono<CustomerDTO> saveCustomer(Mono<CustomerDTO> customerDTO);
     Mono<CustomerDTO> saveCustomer(CustomerDTO customerDTO);
     Mono<CustomerDTO> updateCustomer(String customerId, CustomerDTO customerDTO);
+    Mono<CustomerDTO> updateCustomer(String customerId, CustomerDTO customerDTO, Long expectedVersion);
     Mono<CustomerDTO> patchCustomer(String customerId, CustomerDTO customerDTO);
+    Mono<CustomerDTO> patchCustomer(String customerId, CustomerDTO customerDTO, Long expectedVersion);
     Mono<Void> deleteCustomerById(String customerId);
+    Mono<Void> deleteCustomerById(String customerId, Long expectedVersion);
 }
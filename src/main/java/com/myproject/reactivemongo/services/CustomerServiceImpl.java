@@ -1,79 +1,209 @@
 package com.myproject.reactivemongo.services;
 
+import com.myproject.reactivemongo.cache.CustomerCache;
+import com.myproject.reactivemongo.domain.Customer;
 import com.myproject.reactivemongo.mappers.CustomerMapper;
 import com.myproject.reactivemongo.model.CustomerDTO;
 import com.myproject.reactivemongo.repositories.CustomerRepository;
+import com.mongodb.ReadPreference;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 @Service
 @RequiredArgsConstructor
 public class CustomerServiceImpl implements CustomerService {
 
     private final CustomerMapper customerMapper;
     private final CustomerRepository customerRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final CustomerCache customerCache;
+    private final ReadPreference listReadPreference;
 
     @Override
     public Flux<CustomerDTO> listCustomers() {
-        return customerRepository.findAll()
+        return mongoTemplate.find(listQuery(new Query()), Customer.class)
+                .map(customerMapper::customerToCustomerDto);
+    }
+
+    @Override
+    public Flux<CustomerDTO> listCustomers(String afterId, int limit) {
+
+        return mongoTemplate.find(keysetPage(new Query(), afterId, limit), Customer.class)
                 .map(customerMapper::customerToCustomerDto);
     }
 
+    @Override
+    public Flux<Map<String, Object>> listCustomers(Set<String> fields, String afterId, int limit) {
+
+        return mongoTemplate.find(keysetPage(Projections.include(new Query(), fields), afterId, limit), Customer.class)
+                .map(customer -> Projections.toMap(customer, customerEntity(), fields));
+    }
+
     @Override
     public Mono<CustomerDTO> getCustomerById(String customerId) {
-        return customerRepository.findById(customerId)
+        return customerCache.getById(customerId, customerRepository::findById)
                 .map(customerMapper::customerToCustomerDto);
     }
 
+    @Override
+    public Mono<Map<String, Object>> getCustomerById(String customerId, Set<String> fields) {
+
+        return mongoTemplate.findOne(Projections.include(query(where("id").is(customerId)), fields), Customer.class)
+                .map(customer -> Projections.toMap(customer, customerEntity(), fields));
+    }
+
     @Override
     public Flux<CustomerDTO> findByCustomerName(String customerName) {
-        return customerRepository.findByCustomerName(customerName)
+        return mongoTemplate.find(listQuery(query(where("customerName").is(customerName))), Customer.class)
                 .map(customerMapper::customerToCustomerDto);
     }
 
+    @Override
+    public Flux<CustomerDTO> findByCustomerName(String customerName, String afterId, int limit) {
+
+        return mongoTemplate.find(keysetPage(query(where("customerName").is(customerName)), afterId, limit), Customer.class)
+                .map(customerMapper::customerToCustomerDto);
+    }
+
+    @Override
+    public Flux<Map<String, Object>> findByCustomerName(String customerName, Set<String> fields, String afterId, int limit) {
+
+        Query query = Projections.include(query(where("customerName").is(customerName)), fields);
+
+        return mongoTemplate.find(keysetPage(query, afterId, limit), Customer.class)
+                .map(customer -> Projections.toMap(customer, customerEntity(), fields));
+    }
+
     @Override
     public Mono<CustomerDTO> saveCustomer(Mono<CustomerDTO> customerDTO) {
         return customerDTO.map(customerMapper::customerDtoToCustomer)
                 .flatMap(customerRepository::save)
+                .doOnNext(savedCustomer -> customerCache.evict(savedCustomer.getId()))
                 .map(customerMapper::customerToCustomerDto);
     }
 
     @Override
     public Mono<CustomerDTO> saveCustomer(CustomerDTO customerDTO) {
         return customerRepository.save(customerMapper.customerDtoToCustomer(customerDTO))
+                .doOnNext(savedCustomer -> customerCache.evict(savedCustomer.getId()))
                 .map(customerMapper::customerToCustomerDto);
     }
 
     @Override
     public Mono<CustomerDTO> updateCustomer(String customerId, CustomerDTO customerDTO) {
-        return customerRepository.findById(customerId)
-                .map(foundCustomer -> {
-                    foundCustomer.setCustomerName(customerDTO.getCustomerName());
+        return updateCustomer(customerId, customerDTO, null);
+    }
 
-                    return foundCustomer;
-                }).flatMap(customerRepository::save)
-                .map(customerMapper::customerToCustomerDto);
+    @Override
+    public Mono<CustomerDTO> updateCustomer(String customerId, CustomerDTO customerDTO, Long expectedVersion) {
+
+        return modifyCustomer(customerId, expectedVersion, new Update()
+                .set("customerName", customerDTO.getCustomerName()));
     }
 
     @Override
     public Mono<CustomerDTO> patchCustomer(String customerId, CustomerDTO customerDTO) {
-        return customerRepository.findById(customerId)
-                .map(foundCustomer -> {
+        return patchCustomer(customerId, customerDTO, null);
+    }
+
+    @Override
+    public Mono<CustomerDTO> patchCustomer(String customerId, CustomerDTO customerDTO, Long expectedVersion) {
 
-                    if (StringUtils.hasText(customerDTO.getCustomerName())) {
-                        foundCustomer.setCustomerName(customerDTO.getCustomerName());
-                    }
+        Update update = new Update();
 
-                    return foundCustomer;
-                }).flatMap(customerRepository::save)
-                .map(customerMapper::customerToCustomerDto);
+        if (StringUtils.hasText(customerDTO.getCustomerName())) {
+            update.set("customerName", customerDTO.getCustomerName());
+        }
+
+        return modifyCustomer(customerId, expectedVersion, update);
+    }
+
+    private Mono<CustomerDTO> modifyCustomer(String customerId, Long expectedVersion, Update update) {
+
+        return mongoTemplate.findAndModify(byIdAndVersion(customerId, expectedVersion),
+                        update.inc("version", 1).currentDate("lastModifiedDate"),
+                        FindAndModifyOptions.options().returnNew(true),
+                        Customer.class)
+                .map(customerMapper::customerToCustomerDto)
+                .switchIfEmpty(versionConflict(customerId, expectedVersion))
+                .doOnTerminate(() -> customerCache.evict(customerId));
     }
 
     @Override
     public Mono<Void> deleteCustomerById(String customerId) {
-        return customerRepository.deleteById(customerId);
+        return customerRepository.deleteById(customerId)
+                .doOnTerminate(() -> customerCache.evict(customerId));
+    }
+
+    @Override
+    public Mono<Void> deleteCustomerById(String customerId, Long expectedVersion) {
+
+        if (expectedVersion == null) {
+            return deleteCustomerById(customerId);
+        }
+
+        return mongoTemplate.remove(byIdAndVersion(customerId, expectedVersion), Customer.class)
+                .flatMap(result -> result.getDeletedCount() > 0
+                        ? Mono.empty()
+                        : versionConflict(customerId, expectedVersion))
+                .then()
+                .doOnTerminate(() -> customerCache.evict(customerId));
+    }
+
+    private static Query byIdAndVersion(String customerId, Long expectedVersion) {
+
+        Criteria criteria = where("id").is(customerId);
+
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        return query(criteria);
+    }
+
+    private <T> Mono<T> versionConflict(String customerId, Long expectedVersion) {
+
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+
+        return customerRepository.existsById(customerId)
+                .flatMap(exists -> exists
+                        ? Mono.error(new OptimisticLockingFailureException(
+                                "Customer " + customerId + " is not at version " + expectedVersion))
+                        : Mono.empty());
+    }
+
+    private MongoPersistentEntity<?> customerEntity() {
+        return mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Customer.class);
+    }
+
+    private Query listQuery(Query query) {
+        return query.withReadPreference(listReadPreference);
+    }
+
+    private Query keysetPage(Query query, String afterId, int limit) {
+
+        if (afterId != null) {
+            query.addCriteria(where("id").gt(new ObjectId(afterId)));
+        }
+        return listQuery(query.with(Sort.by("id")).limit(limit));
     }
 }
@@ -0,0 +1,13 @@
+package com.myproject.reactivemongo.services;
+
+import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.StyleInventory;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface InventoryService {
+
+    Mono<List<StyleInventory>> stockByStyle();
+    Mono<List<BeerDTO>> lowStock(int limit);
+}
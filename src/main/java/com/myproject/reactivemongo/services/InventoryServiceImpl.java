@@ -0,0 +1,68 @@
+package com.myproject.reactivemongo.services;
+
+import com.myproject.reactivemongo.cache.InventoryCache;
+import com.myproject.reactivemongo.config.InventoryProperties;
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.mappers.BeerMapper;
+import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.StyleInventory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Service
+@RequiredArgsConstructor
+public class InventoryServiceImpl implements InventoryService {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final BeerMapper beerMapper;
+    private final InventoryCache inventoryCache;
+    private final InventoryProperties inventoryProperties;
+    private final BeerStyleSummaryService styleSummaryService;
+
+    @Override
+    public Mono<List<StyleInventory>> stockByStyle() {
+
+        return styleSummaryService.summaries()
+                .map(summary -> StyleInventory.builder()
+                        .beerStyle(summary.getBeerStyle())
+                        .beerCount(summary.getBeerCount())
+                        .totalQuantityOnHand(summary.getTotalQuantityOnHand())
+                        .stockValue(summary.getStockValue())
+                        .build())
+                .collectList();
+    }
+
+    @Override
+    public Mono<List<BeerDTO>> lowStock(int limit) {
+
+        TypedAggregation<Beer> aggregation = newAggregation(Beer.class,
+                match(where("quantityOnHand").ne(null)),
+                sort(Sort.by("quantityOnHand", "id")),
+                limit(limit))
+                .withOptions(options());
+
+        return inventoryCache.getLowStock(limit, () -> mongoTemplate.aggregate(aggregation, Beer.class)
+                .map(beerMapper::beerToBeerDto)
+                .collectList());
+    }
+
+    private AggregationOptions options() {
+
+        return AggregationOptions.builder()
+                .allowDiskUse(inventoryProperties.isAllowDiskUse())
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.myproject.reactivemongo.services;
+
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse field selection pushed down to Mongo as a projection. Projected documents are returned as
+ * maps holding only the selected fields that are present, so absent fields are neither mapped nor
+ * serialized.
+ */
+final class Projections {
+
+    private Projections() {
+    }
+
+    static Query include(Query query, Set<String> fields) {
+        query.fields().include(fields.toArray(String[]::new));
+        return query;
+    }
+
+    static Map<String, Object> toMap(Object document, MongoPersistentEntity<?> entity, Set<String> fields) {
+
+        PersistentPropertyAccessor<?> accessor = entity.getPropertyAccessor(document);
+        Map<String, Object> projected = new LinkedHashMap<>();
+
+        for (String field : fields) {
+            MongoPersistentProperty property = entity.getPersistentProperty(field);
+            Object value = property != null ? accessor.getProperty(property) : null;
+
+            if (value != null) {
+                projected.put(field, value);
+            }
+        }
+        return projected;
+    }
+}
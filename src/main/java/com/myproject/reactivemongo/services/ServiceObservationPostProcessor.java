@@ -0,0 +1,71 @@
+package com.myproject.reactivemongo.services;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+
+/**
+ * Observes every {@link Mono} and {@link Flux} returned by the service interfaces in this package.
+ * Each subscription is timed as {@value #OBSERVATION_NAME}, tagged with the service and method, and
+ * becomes the parent span of the Mongo commands it issues.
+ */
+@Component
+public class ServiceObservationPostProcessor implements BeanPostProcessor {
+
+    static final String OBSERVATION_NAME = "service.call";
+
+    private final ObjectProvider<ObservationRegistry> observationRegistry;
+
+    public ServiceObservationPostProcessor(ObjectProvider<ObservationRegistry> observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+        Class<?> service = Arrays.stream(bean.getClass().getInterfaces())
+                .filter(type -> type.getPackage() == ServiceObservationPostProcessor.class.getPackage())
+                .filter(type -> type.getSimpleName().endsWith("Service"))
+                .findFirst()
+                .orElse(null);
+
+        if (service == null) {
+            return bean;
+        }
+
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.addAdvice(observe(service.getSimpleName()));
+        return proxyFactory.getProxy();
+    }
+
+    private MethodInterceptor observe(String service) {
+
+        return invocation -> {
+            Object result = invocation.proceed();
+            String method = invocation.getMethod().getName();
+
+            if (result instanceof Mono<?> mono) {
+                return mono.name(OBSERVATION_NAME)
+                        .tag("service", service)
+                        .tag("method", method)
+                        .tap(Micrometer.observation(observationRegistry.getObject()));
+            }
+
+            if (result instanceof Flux<?> flux) {
+                return flux.name(OBSERVATION_NAME)
+                        .tag("service", service)
+                        .tag("method", method)
+                        .tap(Micrometer.observation(observationRegistry.getObject()));
+            }
+            return result;
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package com.myproject.reactivemongo.web.compression;
+
+import com.myproject.reactivemongo.config.ResponseCompressionProperties;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Compresses the body on its way out, chunk by chunk. Plain bodies are only compressed once they
+ * reach the minimum size, so up to that many bytes are held back while deciding. Streaming bodies
+ * written with {@link #writeAndFlushWith} are compressed from the start and every element is
+ * flushed through the encoder so it reaches the client immediately.
+ */
+class CompressingResponse extends ServerHttpResponseDecorator {
+
+    private final ContentEncoding encoding;
+    private final ResponseCompressionProperties properties;
+    private final CompressionMetrics metrics;
+
+    CompressingResponse(ServerHttpResponse delegate, ContentEncoding encoding,
+                        ResponseCompressionProperties properties, CompressionMetrics metrics) {
+        super(delegate);
+        this.encoding = encoding;
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+
+        if (!isCompressible()) {
+            return super.writeWith(body);
+        }
+
+        long minSize = properties.getMinResponseSize().toBytes();
+        long contentLength = getHeaders().getContentLength();
+
+        if (encoding == null || (contentLength >= 0 && contentLength < minSize)) {
+            return super.writeWith(body);
+        }
+
+        AtomicLong seen = new AtomicLong();
+
+        // headers can still change here, the response is committed when the first buffer is written
+        return super.writeWith(Flux.<DataBuffer>from(body)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .bufferUntil(buffer -> seen.addAndGet(buffer.readableByteCount()) >= minSize)
+                .switchOnFirst((first, lists) -> {
+                    Flux<DataBuffer> buffers = lists.flatMapIterable(Function.identity());
+
+                    // the first list only falls short of the threshold when the body ended before it
+                    if (first.hasValue() && size(first.get()) < minSize) {
+                        return buffers;
+                    }
+
+                    StreamCompressor compressor = compressor();
+
+                    return buffers.map(compressor::write)
+                            .concatWith(Mono.fromCallable(compressor::finish))
+                            .filter(bytes -> bytes.length > 0)
+                            .map(bufferFactory()::wrap)
+                            .doFinally(signal -> complete(compressor, signal));
+                }));
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+
+        if (!isCompressible() || encoding == null) {
+            return super.writeAndFlushWith(body);
+        }
+
+        StreamCompressor compressor = compressor();
+
+        // the server may request the next element before it has written the previous one, so each
+        // element is compressed here rather than when its buffers are written
+        Flux<Flux<DataBuffer>> chunks = Flux.from(body)
+                .concatMap(element -> Flux.from(element)
+                        .map(compressor::write)
+                        .concatWith(Mono.fromCallable(compressor::flush))
+                        .filter(bytes -> bytes.length > 0)
+                        .map(bufferFactory()::wrap)
+                        .collectList())
+                .map(Flux::fromIterable);
+
+        return super.writeAndFlushWith(chunks
+                .concatWith(Mono.fromCallable(() -> Flux.just(bufferFactory().wrap(compressor.finish()))))
+                .doFinally(signal -> complete(compressor, signal)));
+    }
+
+    private boolean isCompressible() {
+
+        HttpHeaders headers = getHeaders();
+        MediaType contentType = headers.getContentType();
+
+        if (contentType == null || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || properties.getMimeTypes().stream().noneMatch(mimeType -> mimeType.isCompatibleWith(contentType))) {
+            return false;
+        }
+
+        if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return true;
+    }
+
+    private StreamCompressor compressor() {
+
+        getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        getHeaders().set(HttpHeaders.CONTENT_ENCODING, encoding.token());
+        return new StreamCompressor(encoding, properties);
+    }
+
+    private void complete(StreamCompressor compressor, SignalType signal) {
+
+        compressor.close();
+
+        if (signal == SignalType.ON_COMPLETE) {
+            metrics.record(compressor);
+        }
+    }
+
+    private static long size(List<DataBuffer> buffers) {
+        return buffers.stream().mapToLong(DataBuffer::readableByteCount).sum();
+    }
+}
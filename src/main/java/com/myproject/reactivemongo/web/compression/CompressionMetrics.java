@@ -0,0 +1,69 @@
+package com.myproject.reactivemongo.web.compression;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-coding meters for compressed responses: the uncompressed to compressed size ratio, the CPU
+ * time spent in the encoder and the bytes on either side of it.
+ */
+final class CompressionMetrics {
+
+    private final Map<ContentEncoding, Meters> meters = new EnumMap<>(ContentEncoding.class);
+
+    CompressionMetrics(MeterRegistry registry) {
+
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            meters.put(encoding, new Meters(registry, encoding.token()));
+        }
+    }
+
+    void record(StreamCompressor compressor) {
+
+        Meters encodingMeters = meters.get(compressor.encoding());
+
+        encodingMeters.cpu.record(compressor.cpuNanos(), TimeUnit.NANOSECONDS);
+        encodingMeters.uncompressed.increment(compressor.bytesIn());
+        encodingMeters.compressed.increment(compressor.bytesOut());
+
+        if (compressor.bytesOut() > 0) {
+            encodingMeters.ratio.record((double) compressor.bytesIn() / compressor.bytesOut());
+        }
+    }
+
+    private static final class Meters {
+
+        private final DistributionSummary ratio;
+        private final Timer cpu;
+        private final Counter uncompressed;
+        private final Counter compressed;
+
+        private Meters(MeterRegistry registry, String encoding) {
+
+            this.ratio = DistributionSummary.builder("http.server.response.compression.ratio")
+                    .description("Uncompressed body size divided by compressed body size")
+                    .tag("encoding", encoding)
+                    .register(registry);
+            this.cpu = Timer.builder("http.server.response.compression.cpu")
+                    .description("CPU time spent compressing a response body")
+                    .tag("encoding", encoding)
+                    .register(registry);
+            this.uncompressed = Counter.builder("http.server.response.compression.bytes")
+                    .baseUnit("bytes")
+                    .tag("encoding", encoding)
+                    .tag("stage", "uncompressed")
+                    .register(registry);
+            this.compressed = Counter.builder("http.server.response.compression.bytes")
+                    .baseUnit("bytes")
+                    .tag("encoding", encoding)
+                    .tag("stage", "compressed")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.myproject.reactivemongo.web.compression;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.myproject.reactivemongo.config.ResponseCompressionProperties;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content codings the server can produce. Every stream is opened in sync-flush mode so a flush
+ * pushes out everything written so far as a complete block.
+ */
+enum ContentEncoding {
+
+    GZIP("gzip") {
+        @Override
+        OutputStream open(OutputStream out, ResponseCompressionProperties properties) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE, true) {
+                {
+                    def.setLevel(properties.getLevel());
+                }
+            };
+        }
+    },
+
+    DEFLATE("deflate") {
+        @Override
+        OutputStream open(OutputStream out, ResponseCompressionProperties properties) {
+            return new DeflaterOutputStream(out, new Deflater(properties.getLevel()), BUFFER_SIZE, true) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+    },
+
+    ZSTD("zstd") {
+        @Override
+        OutputStream open(OutputStream out, ResponseCompressionProperties properties) throws IOException {
+            return new ZstdOutputStream(out, properties.getZstdLevel());
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    String token() {
+        return token;
+    }
+
+    abstract OutputStream open(OutputStream out, ResponseCompressionProperties properties) throws IOException;
+
+    static ContentEncoding of(String token) {
+
+        for (ContentEncoding encoding : values()) {
+            if (encoding.token.equalsIgnoreCase(token.trim())) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content encoding: " + token);
+    }
+
+    /**
+     * Picks the coding with the highest quality in the {@code Accept-Encoding} values, falling back
+     * to the order of {@code preferred} on ties. Returns null when nothing preferred is acceptable.
+     */
+    static ContentEncoding negotiate(List<String> acceptEncoding, List<ContentEncoding> preferred) {
+
+        Map<String, Double> qualities = new HashMap<>();
+
+        for (String value : acceptEncoding) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+
+                if (!name.isEmpty()) {
+                    qualities.put(name, quality(parts));
+                }
+            }
+        }
+
+        ContentEncoding best = null;
+        double bestQuality = 0;
+
+        for (ContentEncoding encoding : preferred) {
+            double quality = qualities.getOrDefault(encoding.token, qualities.getOrDefault("*", 0d));
+
+            if (quality > bestQuality) {
+                best = encoding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    private static double quality(String[] parts) {
+
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
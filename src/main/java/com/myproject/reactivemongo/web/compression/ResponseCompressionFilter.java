@@ -0,0 +1,48 @@
+package com.myproject.reactivemongo.web.compression;
+
+import com.myproject.reactivemongo.config.ResponseCompressionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Negotiates a content coding from {@code Accept-Encoding} and compresses eligible response bodies.
+ * Used instead of the server's built-in compression so the cost can be metered per coding and zstd
+ * can be offered next to gzip and deflate.
+ */
+@Component
+public class ResponseCompressionFilter implements WebFilter {
+
+    private final ResponseCompressionProperties properties;
+    private final List<ContentEncoding> encodings;
+    private final CompressionMetrics metrics;
+
+    public ResponseCompressionFilter(ResponseCompressionProperties properties, MeterRegistry meterRegistry) {
+
+        this.properties = properties;
+        this.encodings = properties.getEncodings().stream().map(ContentEncoding::of).toList();
+        this.metrics = new CompressionMetrics(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+
+        if (!properties.isEnabled() || HttpMethod.HEAD.equals(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+
+        ContentEncoding encoding = ContentEncoding.negotiate(
+                exchange.getRequest().getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING), encodings);
+
+        return chain.filter(exchange.mutate()
+                .response(new CompressingResponse(exchange.getResponse(), encoding, properties, metrics))
+                .build());
+    }
+}
@@ -0,0 +1,137 @@
+package com.myproject.reactivemongo.web.compression;
+
+import com.myproject.reactivemongo.config.ResponseCompressionProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Compresses one response body a chunk at a time. Each call returns whatever compressed output is
+ * ready, so the body never has to be held in memory as a whole. Not thread safe; the chunks of a
+ * response body are delivered one at a time.
+ */
+final class StreamCompressor {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ContentEncoding encoding;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final OutputStream stream;
+
+    private long bytesIn;
+    private long bytesOut;
+    private long cpuNanos;
+    private boolean closed;
+
+    StreamCompressor(ContentEncoding encoding, ResponseCompressionProperties properties) {
+
+        this.encoding = encoding;
+
+        try {
+            this.stream = encoding.open(output, properties);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compresses the chunk and releases it. The output may be empty while the encoder is still
+     * filling a block.
+     */
+    byte[] write(DataBuffer chunk) {
+
+        try {
+            byte[] bytes = new byte[chunk.readableByteCount()];
+            chunk.read(bytes);
+            bytesIn += bytes.length;
+
+            long start = cpuTime();
+            stream.write(bytes);
+            cpuNanos += cpuTime() - start;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(chunk);
+        }
+        return drain();
+    }
+
+    /**
+     * Emits everything written so far, so a streaming client can decode each element as it arrives.
+     */
+    byte[] flush() {
+
+        try {
+            long start = cpuTime();
+            stream.flush();
+            cpuNanos += cpuTime() - start;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return drain();
+    }
+
+    byte[] finish() {
+
+        try {
+            long start = cpuTime();
+            closed = true;
+            stream.close();
+            cpuNanos += cpuTime() - start;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return drain();
+    }
+
+    /**
+     * Frees the encoder's native memory when the body was cancelled or failed before it finished.
+     */
+    void close() {
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // the body is being discarded
+        }
+    }
+
+    ContentEncoding encoding() {
+        return encoding;
+    }
+
+    long bytesIn() {
+        return bytesIn;
+    }
+
+    long bytesOut() {
+        return bytesOut;
+    }
+
+    long cpuNanos() {
+        return cpuNanos;
+    }
+
+    private byte[] drain() {
+
+        byte[] bytes = output.toByteArray();
+        output.reset();
+        bytesOut += bytes.length;
+        return bytes;
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
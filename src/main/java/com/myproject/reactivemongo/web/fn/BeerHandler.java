@@ -1,130 +1,335 @@
 package com.myproject.reactivemongo.web.fn;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myproject.reactivemongo.config.BeerBulkProperties;
+import com.myproject.reactivemongo.model.BeerChangeEvent;
 import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.BulkItemResult;
+import com.myproject.reactivemongo.services.BeerChangeService;
+import com.myproject.reactivemongo.services.BeerQuerySpec;
+import com.myproject.reactivemongo.services.BeerQuerySpecParser;
 import com.myproject.reactivemongo.services.BeerService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
-import org.springframework.validation.BeanPropertyBindingResult;
-import org.springframework.validation.Errors;
-import org.springframework.validation.Validator;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.regex.Pattern;
 
 @Component
 @RequiredArgsConstructor
 public class BeerHandler {
 
     private final BeerService beerService;
-    private final Validator validator;
+    private final BeerChangeService beerChangeService;
+    private final RequestValidator requestValidator;
+    private final BeerBulkProperties bulkProperties;
+    private final BeerQuerySpecParser querySpecParser;
 
-    private static final Function<ResponseStatusException, Mono<ServerResponse>> handleResponseStatusException = ex ->
-            ServerResponse.status(ex.getStatusCode())
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(ex.getReason() != null ? ex.getReason() : "");
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+    private static final Pattern RESUME_TOKEN = Pattern.compile("(?:[0-9A-Fa-f]{2})+");
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
 
-    private void validate(BeerDTO beerDTO) {
+    static final String SEARCH_PARAM = "q";
+    static final String PREFIX_PARAM = "prefix";
+    static final String PAGE_PARAM = "page";
+    static final int AUTOCOMPLETE_LIMIT = 10;
 
-        Errors errors = new BeanPropertyBindingResult(beerDTO, "beerDto");
-        validator.validate(beerDTO, errors);
+    public Mono<ServerResponse> listBeers(ServerRequest request) {
 
-        if (errors.hasErrors()) {
-            ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        return Mono.defer(() -> {
+                    BeerQuerySpec spec = querySpec(request);
 
-            List<Map<String, String>> errorList = Stream.concat(
-                    Stream.of(Collections.singletonMap("message", "Validate Failed")),
-                    errors.getFieldErrors().stream()
-                            .map(fieldError ->
-                                    Collections.singletonMap(fieldError.getField(), fieldError.getDefaultMessage()))
-            ).collect(Collectors.toList());
+                    if (FieldSelection.isSelected(request)) {
+                        return listProjectedBeers(request, spec);
+                    }
 
-            try {
-                String jsonErrorDetails = objectMapper.writeValueAsString(errorList);
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, jsonErrorDetails);
-            } catch (JsonProcessingException e) {
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error processing JSON", e);
-            }
+                    if (PageCursor.isPaged(request)) {
+                        return listBeersPage(request, spec, ContentTypes.ENTITY,
+                                (afterId, limit) -> beerService.findBeers(spec, afterId, limit), BeerDTO::getId);
+                    }
+
+                    return ContentTypes.ok(request)
+                            .body(beerService.findBeers(spec, null, 0), BeerDTO.class);
+                });
+    }
+
+    public Mono<ServerResponse> streamBeers(ServerRequest request) {
+
+        MediaType mediaType = ContentTypes.streaming(request, MediaType.APPLICATION_NDJSON);
+
+        return Mono.defer(() -> {
+                    BeerQuerySpec spec = querySpec(request);
+
+                    if (FieldSelection.isSelected(request)) {
+                        return ServerResponse.ok()
+                                .contentType(mediaType)
+                                .body(beerService.findBeers(spec, FieldSelection.fields(request, BeerDTO.class), null, 0),
+                                        FieldSelection.PROJECTED_TYPE);
+                    }
+
+                    return ServerResponse.ok()
+                            .contentType(mediaType)
+                            .body(beerService.findBeers(spec, null, 0), BeerDTO.class);
+                });
+    }
+
+    /**
+     * Text search ranked by score, paged with {@code page} and {@code limit}. With {@code prefix=true}
+     * the query is treated as a type-ahead prefix of the beer name instead.
+     */
+    public Mono<ServerResponse> searchBeers(ServerRequest request) {
+
+        MediaType mediaType = ContentTypes.streaming(request, null);
+
+        return Mono.defer(() -> {
+                    String text = request.queryParam(SEARCH_PARAM)
+                            .filter(StringUtils::hasText)
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                    "Query parameter " + SEARCH_PARAM + " is required"));
+
+                    Flux<BeerDTO> results;
+
+                    if (request.queryParam(PREFIX_PARAM).map(Boolean::parseBoolean).orElse(false)) {
+                        int limit = request.queryParam(PageCursor.LIMIT_PARAM).isPresent()
+                                ? PageCursor.limit(request)
+                                : AUTOCOMPLETE_LIMIT;
+                        results = beerService.autocompleteBeers(text, limit);
+                    } else {
+                        int page = request.queryParam(PAGE_PARAM).map(BeerHandler::parseInteger).orElse(0);
+
+                        if (page < 0) {
+                            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page must not be negative");
+                        }
+                        results = beerService.searchBeers(text, page, PageCursor.limit(request));
+                    }
+
+                    ServerResponse.BodyBuilder response = mediaType != null
+                            ? ServerResponse.ok().contentType(mediaType)
+                            : ContentTypes.ok(request);
+
+                    return response.body(results, BeerDTO.class);
+                });
+    }
+
+    private BeerQuerySpec querySpec(ServerRequest request) {
+
+        try {
+            return querySpecParser.parse(request.queryParams());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
+    private Mono<ServerResponse> listProjectedBeers(ServerRequest request, BeerQuerySpec spec) {
 
-    public Mono<ServerResponse> listBeers(ServerRequest request) {
+        Set<String> fields = FieldSelection.fields(request, BeerDTO.class);
+
+        if (!PageCursor.isPaged(request)) {
+            return ContentTypes.ok(request, ContentTypes.PROJECTED)
+                    .body(beerService.findBeers(spec, fields, null, 0), FieldSelection.PROJECTED_TYPE);
+        }
+
+        return listBeersPage(request, spec, ContentTypes.PROJECTED,
+                (afterId, limit) -> beerService.findBeers(spec, fields, afterId, limit), FieldSelection::id);
+    }
+
+    /**
+     * Unsorted listings page with the id cursor. Sorted listings return the first {@code limit} rows
+     * only, since the id cursor cannot resume an order on other fields.
+     */
+    private <T> Mono<ServerResponse> listBeersPage(ServerRequest request, BeerQuerySpec spec, MediaType[] mediaTypes,
+                                                   BiFunction<String, Integer, Flux<T>> page,
+                                                   Function<T, String> idExtractor) {
 
-        Flux<BeerDTO> flux;
+        int limit = PageCursor.limit(request);
 
-        if (request.queryParam("beerStyle").isPresent()) {
-            flux = beerService.findByBeerStyle(request.queryParam("beerStyle").get());
-        } else {
-            flux = beerService.listBeers();
+        if (!spec.isSorted()) {
+            return PageCursor.respond(request, mediaTypes, page.apply(PageCursor.afterId(request), limit + 1), limit,
+                    idExtractor);
         }
 
-        return ServerResponse.ok()
-                .body(flux, BeerDTO.class);
+        if (request.queryParam(PageCursor.CURSOR_PARAM).isPresent()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor paging is not supported with sort");
+        }
+        return PageCursor.respond(request, mediaTypes, page.apply(null, limit), limit, idExtractor);
+    }
+
+    public Mono<ServerResponse> beerChanges(ServerRequest request) {
+
+        return Mono.defer(() -> {
+                    Integer quantityOnHandBelow = request.queryParam("quantityOnHandBelow")
+                            .map(BeerHandler::parseInteger)
+                            .orElse(null);
+
+                    Flux<ServerSentEvent<BeerChangeEvent>> events = beerChangeService
+                            .changes(request.queryParam("beerStyle").orElse(null), quantityOnHandBelow,
+                                    resumeToken(request))
+                            .map(event -> ServerSentEvent.builder(event)
+                                    .id(event.getResumeToken())
+                                    .event(event.getOperationType())
+                                    .build());
+
+                    Flux<ServerSentEvent<BeerChangeEvent>> heartbeats = Flux.interval(HEARTBEAT_INTERVAL)
+                            .map(tick -> ServerSentEvent.<BeerChangeEvent>builder().comment("heartbeat").build());
+
+                    return ServerResponse.ok()
+                            .contentType(MediaType.TEXT_EVENT_STREAM)
+                            .body(events.publish(shared -> Flux.merge(shared,
+                                            heartbeats.takeUntilOther(shared.ignoreElements()))),
+                                    new ParameterizedTypeReference<ServerSentEvent<BeerChangeEvent>>() {
+                                    });
+                });
+    }
+
+    /**
+     * The event id a reconnecting client sends back is the hex {@code _data} of a resume token. It is
+     * checked up front so a malformed one fails the request instead of the stream after the 200.
+     */
+    private static String resumeToken(ServerRequest request) {
+
+        String lastEventId = request.headers().firstHeader(LAST_EVENT_ID);
+
+        if (lastEventId != null && !RESUME_TOKEN.matcher(lastEventId).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + LAST_EVENT_ID + ": " + lastEventId);
+        }
+        return lastEventId;
+    }
+
+    private static Integer parseInteger(String value) {
+
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid number: " + value);
+        }
     }
 
     public Mono<ServerResponse> getBeerById(ServerRequest request) {
 
-        return ServerResponse.ok()
-                .body(beerService.getById(request.pathVariable("beerId"))
-                                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND))),
-                        BeerDTO.class);
+        if (FieldSelection.isSelected(request)) {
+            return Mono.defer(() -> beerService.getById(request.pathVariable("beerId"),
+                            FieldSelection.fields(request, BeerDTO.class)))
+                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                    .flatMap(projected -> ContentTypes.ok(request, ContentTypes.PROJECTED).bodyValue(projected));
+        }
+
+        return beerService.getById(request.pathVariable("beerId"))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(dto -> EntityTags.okOrNotModified(request, dto.getVersion(), dto));
     }
 
     public Mono<ServerResponse> createNewBeer(ServerRequest request) {
 
-        return request.bodyToMono(BeerDTO.class)
-                .flatMap(beerDTO -> Mono.defer(() -> {
-                    validate(beerDTO);
-                    return beerService.saveBeer(beerDTO);
-                }))
+        return requestValidator.body(request, BeerDTO.class)
+                .flatMap(beerService::saveBeer)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .onErrorMap(DuplicateKeyException.class,
+                        ex -> new ResponseStatusException(HttpStatus.CONFLICT, "A beer with this upc already exists"))
                 .flatMap(savedDto -> ServerResponse.created(
                         UriComponentsBuilder.fromPath(BeerRouterConfig.BEER_PATH_ID)
                                 .build(savedDto.getId())
-                ).build())
-                .onErrorResume(ResponseStatusException.class, handleResponseStatusException);
+                ).build());
+    }
 
+    public Mono<ServerResponse> bulkUpsertBeers(ServerRequest request) {
+
+        MediaType mediaType = request.headers().accept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype)
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.APPLICATION_JSON;
+
+        Flux<BulkItemResult> results = request.bodyToFlux(BeerDTO.class)
+                .index()
+                .buffer(bulkProperties.getBatchSize())
+                .concatMap(this::upsertBatch);
+
+        return ServerResponse.ok()
+                .contentType(mediaType)
+                .body(results, BulkItemResult.class);
+    }
+
+    private Flux<BulkItemResult> upsertBatch(List<Tuple2<Long, BeerDTO>> batch) {
+
+        Map<Long, BeerDTO> valid = new LinkedHashMap<>();
+        List<BulkItemResult> invalid = new ArrayList<>();
+
+        for (Tuple2<Long, BeerDTO> item : batch) {
+
+            List<RequestValidator.Violation> violations = requestValidator.violations(item.getT2(), false);
+
+            if (!violations.isEmpty()) {
+                invalid.add(BulkItemResult.builder()
+                        .index(item.getT1())
+                        .upc(item.getT2().getUpc())
+                        .status(BulkItemResult.Status.INVALID)
+                        .errors(violations.stream()
+                                .map(violation -> violation.field() + ": " + violation.message())
+                                .toList())
+                        .build());
+            } else {
+                valid.put(item.getT1(), item.getT2());
+            }
+        }
+
+        return Flux.fromIterable(invalid)
+                .concatWith(beerService.upsertBeers(valid));
     }
 
     public Mono<ServerResponse> updateBeerById(ServerRequest request) {
-        return request.bodyToMono(BeerDTO.class)
-                .flatMap(beerDTO -> Mono.defer(() -> {
-                    validate(beerDTO);
-                    return beerService.updateBeer(request.pathVariable("beerId"), beerDTO);
-                }))
+        return requestValidator.body(request, BeerDTO.class)
+                .flatMap(beerDTO ->
+                        beerService.updateBeer(request.pathVariable("beerId"), beerDTO, EntityTags.ifMatch(request)))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(savedDto -> ServerResponse.noContent().build())
-                .onErrorResume(ResponseStatusException.class, ex -> ServerResponse.status(ex.getStatusCode())
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(ex.getReason() != null ? ex.getReason() : ""));
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        ex -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED))
+                .onErrorMap(DuplicateKeyException.class,
+                        ex -> new ResponseStatusException(HttpStatus.CONFLICT, "A beer with this upc already exists"))
+                .flatMap(savedDto -> EntityTags.noContent(savedDto.getVersion()));
     }
 
     public Mono<ServerResponse> patchBeerById(ServerRequest request) {
-        return request.bodyToMono(BeerDTO.class)
-                .flatMap(beerDTO -> beerService.patchBeer(request.pathVariable("beerId"), beerDTO))
+        return requestValidator.patchBody(request, BeerDTO.class)
+                .flatMap(beerDTO ->
+                        beerService.patchBeer(request.pathVariable("beerId"), beerDTO, EntityTags.ifMatch(request)))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(updatedDto -> ServerResponse.noContent().build());
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        ex -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED))
+                .onErrorMap(DuplicateKeyException.class,
+                        ex -> new ResponseStatusException(HttpStatus.CONFLICT, "A beer with this upc already exists"))
+                .flatMap(updatedDto -> EntityTags.noContent(updatedDto.getVersion()));
     }
 
     public Mono<ServerResponse> deleteBeerById(ServerRequest request) {
 
-        return beerService.getById(request.pathVariable("beerId"))
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(beerDTO -> beerService.deleteBeerById(beerDTO.getId()))
+        return Mono.defer(() -> {
+                    Long expectedVersion = EntityTags.ifMatch(request);
+
+                    return beerService.getById(request.pathVariable("beerId"))
+                            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                            .flatMap(beerDTO -> beerService.deleteBeerById(beerDTO.getId(), expectedVersion));
+                })
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        ex -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED))
                 .then(ServerResponse.noContent().build());
     }
 }
@@ -17,6 +17,9 @@ public class BeerRouterConfig {
 
     public static final String BEER_PATH = "/api/v3/beer";
     public static final String BEER_PATH_ID = BEER_PATH + "/{beerId}";
+    public static final String BEER_PATH_BULK = BEER_PATH + "/bulk";
+    public static final String BEER_PATH_CHANGES = BEER_PATH + "/changes";
+    public static final String BEER_PATH_SEARCH = BEER_PATH + "/search";
 
     private final BeerHandler beerHandler;
 
@@ -25,12 +28,17 @@ public class BeerRouterConfig {
     public RouterFunction<ServerResponse> beerResponse() {
 
         return route()
-                .GET(BEER_PATH, accept(MediaType.APPLICATION_JSON), beerHandler::listBeers)
-                .GET(BEER_PATH_ID, accept(MediaType.APPLICATION_JSON), beerHandler::getBeerById)
-                .POST(BEER_PATH, accept(MediaType.APPLICATION_JSON), beerHandler::createNewBeer)
-                .PUT(BEER_PATH_ID, accept(MediaType.APPLICATION_JSON), beerHandler::updateBeerById)
-                .PATCH(BEER_PATH_ID, accept(MediaType.APPLICATION_JSON), beerHandler::patchBeerById)
-                .DELETE(BEER_PATH_ID, accept(MediaType.APPLICATION_JSON), beerHandler::deleteBeerById)
+                .GET(BEER_PATH, accept(ContentTypes.ENTITY), beerHandler::listBeers)
+                .GET(BEER_PATH, accept(ContentTypes.STREAMING), beerHandler::streamBeers)
+                .GET(BEER_PATH_CHANGES, accept(MediaType.TEXT_EVENT_STREAM), beerHandler::beerChanges)
+                .GET(BEER_PATH_SEARCH, accept(ContentTypes.ENTITY_OR_STREAMING), beerHandler::searchBeers)
+                .GET(BEER_PATH_ID, accept(ContentTypes.ENTITY), beerHandler::getBeerById)
+                .POST(BEER_PATH, accept(ContentTypes.ENTITY), beerHandler::createNewBeer)
+                .POST(BEER_PATH_BULK, accept(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON), beerHandler::bulkUpsertBeers)
+                .PUT(BEER_PATH_ID, accept(ContentTypes.ENTITY), beerHandler::updateBeerById)
+                .PATCH(BEER_PATH_ID, accept(ContentTypes.ENTITY), beerHandler::patchBeerById)
+                .DELETE(BEER_PATH_ID, accept(ContentTypes.ENTITY), beerHandler::deleteBeerById)
+                .filter(ProblemDetails.filter())
                 .build();
     }
 }
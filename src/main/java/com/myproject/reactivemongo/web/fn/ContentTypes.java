@@ -0,0 +1,92 @@
+package com.myproject.reactivemongo.web.fn;
+
+import com.myproject.reactivemongo.codec.BinaryMediaTypes;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Media types the beer and customer routes negotiate. JSON is listed first so clients that accept
+ * anything keep getting JSON.
+ */
+final class ContentTypes {
+
+    static final MediaType[] ENTITY = {
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR,
+            BinaryMediaTypes.APPLICATION_SMILE,
+            BinaryMediaTypes.APPLICATION_PROTOBUF
+    };
+
+    static final MediaType[] STREAMING = {
+            MediaType.APPLICATION_NDJSON,
+            MediaType.TEXT_EVENT_STREAM,
+            BinaryMediaTypes.APPLICATION_CBOR_SEQ,
+            BinaryMediaTypes.APPLICATION_STREAM_SMILE
+    };
+
+    /**
+     * Media types that can carry projected field maps; protobuf needs a fixed schema.
+     */
+    static final MediaType[] PROJECTED = {
+            MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR,
+            BinaryMediaTypes.APPLICATION_SMILE
+    };
+
+    static final MediaType[] ENTITY_OR_STREAMING = Stream.concat(Arrays.stream(ENTITY), Arrays.stream(STREAMING))
+            .toArray(MediaType[]::new);
+
+    private ContentTypes() {
+    }
+
+    /**
+     * Functional endpoints do not negotiate the response type themselves, so handlers start from a
+     * builder with the negotiated type already set.
+     */
+    static ServerResponse.BodyBuilder ok(ServerRequest request) {
+        return ok(request, ENTITY);
+    }
+
+    static ServerResponse.BodyBuilder ok(ServerRequest request, MediaType... supported) {
+        return ServerResponse.ok().contentType(negotiate(request, supported));
+    }
+
+    /**
+     * The first supported media type accepted by the request, in order of quality. Requests without
+     * an Accept header get the first supported type.
+     */
+    static MediaType negotiate(ServerRequest request, MediaType... supported) {
+
+        List<MediaType> accepted = request.headers().accept().stream()
+                .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                .toList();
+
+        if (accepted.isEmpty()) {
+            return supported[0];
+        }
+
+        return accepted.stream()
+                .flatMap(mediaType -> Arrays.stream(supported).filter(mediaType::includes))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE));
+    }
+
+    /**
+     * The first streaming media type in the request's Accept header, or the fallback if none is.
+     */
+    static MediaType streaming(ServerRequest request, MediaType fallback) {
+
+        return request.headers().accept().stream()
+                .flatMap(accepted -> Arrays.stream(STREAMING).filter(accepted::equalsTypeAndSubtype))
+                .findFirst()
+                .orElse(fallback);
+    }
+}
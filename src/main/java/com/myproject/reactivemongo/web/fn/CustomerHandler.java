@@ -1,16 +1,12 @@
 package com.myproject.reactivemongo.web.fn;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.myproject.reactivemongo.model.CustomerDTO;
 import com.myproject.reactivemongo.services.CustomerService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.validation.BeanPropertyBindingResult;
-import org.springframework.validation.Errors;
-import org.springframework.validation.Validator;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import org.springframework.web.server.ResponseStatusException;
@@ -18,117 +14,152 @@ import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
 public class CustomerHandler {
 
     private final CustomerService customerService;
-    private final Validator validator;
+    private final RequestValidator requestValidator;
 
-    Function<ResponseStatusException, Mono<ServerResponse>> handleResponseStatusException = ex ->
-            ServerResponse.status(ex.getStatusCode())
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(ex.getReason() != null ? ex.getReason() : "");
-
-    private void validate(CustomerDTO customerDTO) {
+    public Mono<ServerResponse> listCustomers(ServerRequest request) {
 
-        Errors errors = new BeanPropertyBindingResult(customerDTO, "customerDto");
-        validator.validate(customerDTO, errors);
+        if (FieldSelection.isSelected(request)) {
+            return listProjectedCustomers(request);
+        }
 
-        if (errors.hasErrors()) {
+        if (PageCursor.isPaged(request)) {
+            return listCustomersPage(request);
+        }
 
-            ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        return ContentTypes.ok(request)
+                .body(listCustomersFlux(request), CustomerDTO.class);
 
-            List<Map<String, String>> errorList = Stream.concat(
-                    Stream.of(Collections.singletonMap("message", "Validate Failed")),
-                    errors.getFieldErrors().stream()
-                            .map(fieldError ->
-                                    Collections.singletonMap(fieldError.getField(), fieldError.getDefaultMessage()))
-            ).collect(Collectors.toList());
+    }
 
-            try {
+    public Mono<ServerResponse> streamCustomers(ServerRequest request) {
 
-                String jsonErrorDetails = objectMapper.writeValueAsString(errorList);
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, jsonErrorDetails);
-            } catch (JsonProcessingException e) {
+        MediaType mediaType = ContentTypes.streaming(request, MediaType.APPLICATION_NDJSON);
 
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error processing JSON", e);
-            }
+        if (FieldSelection.isSelected(request)) {
+            return Mono.defer(() -> ServerResponse.ok()
+                            .contentType(mediaType)
+                            .body(projectedCustomers(request, FieldSelection.fields(request, CustomerDTO.class), null, 0),
+                                    FieldSelection.PROJECTED_TYPE));
         }
+
+        return ServerResponse.ok()
+                .contentType(mediaType)
+                .body(listCustomersFlux(request), CustomerDTO.class);
     }
 
-    public Mono<ServerResponse> listCustomers(ServerRequest request) {
+    private Flux<CustomerDTO> listCustomersFlux(ServerRequest request) {
 
-        Flux<CustomerDTO> flux;
+        return request.queryParam("customerName")
+                .map(customerService::findByCustomerName)
+                .orElseGet(customerService::listCustomers);
+    }
 
-        if (request.queryParam("customerName").isPresent()) {
-            flux = customerService.findByCustomerName(request.queryParam("customerName").get());
-        } else {
-            flux = customerService.listCustomers();
-        }
+    private Mono<ServerResponse> listProjectedCustomers(ServerRequest request) {
 
-        return ServerResponse.ok()
-                .body(flux, CustomerDTO.class);
+        return Mono.defer(() -> {
+                    Set<String> fields = FieldSelection.fields(request, CustomerDTO.class);
+
+                    if (!PageCursor.isPaged(request)) {
+                        return ContentTypes.ok(request, ContentTypes.PROJECTED)
+                                .body(projectedCustomers(request, fields, null, 0), FieldSelection.PROJECTED_TYPE);
+                    }
 
+                    int limit = PageCursor.limit(request);
+
+                    return PageCursor.respond(request, ContentTypes.PROJECTED,
+                            projectedCustomers(request, fields, PageCursor.afterId(request), limit + 1),
+                            limit, FieldSelection::id);
+                });
+    }
+
+    private Flux<Map<String, Object>> projectedCustomers(ServerRequest request, Set<String> fields, String afterId, int limit) {
+
+        return request.queryParam("customerName")
+                .map(customerName -> customerService.findByCustomerName(customerName, fields, afterId, limit))
+                .orElseGet(() -> customerService.listCustomers(fields, afterId, limit));
+    }
+
+    private Mono<ServerResponse> listCustomersPage(ServerRequest request) {
+
+        return Mono.defer(() -> {
+                    String afterId = PageCursor.afterId(request);
+                    int limit = PageCursor.limit(request);
+
+                    Flux<CustomerDTO> page = request.queryParam("customerName")
+                            .map(customerName -> customerService.findByCustomerName(customerName, afterId, limit + 1))
+                            .orElseGet(() -> customerService.listCustomers(afterId, limit + 1));
+
+                    return PageCursor.respond(request, ContentTypes.ENTITY, page, limit, CustomerDTO::getId);
+                });
     }
 
     public Mono<ServerResponse> getCustomerById(ServerRequest request) {
 
-        return ServerResponse.ok()
-                .body(customerService.getCustomerById(request.pathVariable("customerId"))
-                                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND))),
-                        CustomerDTO.class);
+        if (FieldSelection.isSelected(request)) {
+            return Mono.defer(() -> customerService.getCustomerById(request.pathVariable("customerId"),
+                            FieldSelection.fields(request, CustomerDTO.class)))
+                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                    .flatMap(projected -> ContentTypes.ok(request, ContentTypes.PROJECTED).bodyValue(projected));
+        }
+
+        return customerService.getCustomerById(request.pathVariable("customerId"))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(dto -> EntityTags.okOrNotModified(request, dto.getVersion(), dto));
     }
 
     public Mono<ServerResponse> createNewCustomer(ServerRequest request) {
 
-        return request.bodyToMono(CustomerDTO.class)
-                .flatMap(customerDTO -> Mono.defer(() -> {
-                    validate(customerDTO);
-                    return customerService.saveCustomer(customerDTO);
-                }))
+        return requestValidator.body(request, CustomerDTO.class)
+                .flatMap(customerService::saveCustomer)
                 .flatMap(customerDTO -> ServerResponse
                         .created(UriComponentsBuilder
                                 .fromPath(CustomerRouterConfig.CUSTOMER_PATH_ID)
                                 .build(customerDTO.getId()))
-                        .build())
-                .onErrorResume(ResponseStatusException.class, handleResponseStatusException);
+                        .build());
     }
 
     public Mono<ServerResponse> updateCustomerById(ServerRequest request) {
 
-        return request.bodyToMono(CustomerDTO.class)
-                .flatMap(customerDTO -> Mono.defer(() -> {
-                    validate(customerDTO);
-                    return customerService.updateCustomer(request.pathVariable("customerId"), customerDTO);
-                }))
+        return requestValidator.body(request, CustomerDTO.class)
+                .flatMap(customerDTO -> customerService.updateCustomer(request.pathVariable("customerId"), customerDTO,
+                        EntityTags.ifMatch(request)))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(savedDto -> ServerResponse.noContent().build())
-                .onErrorResume(ResponseStatusException.class, handleResponseStatusException);
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        ex -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED))
+                .flatMap(savedDto -> EntityTags.noContent(savedDto.getVersion()));
     }
 
     public Mono<ServerResponse> patchCustomerById(ServerRequest request) {
 
-        return request.bodyToMono(CustomerDTO.class)
-                .flatMap(customerDTO ->
-                        customerService.patchCustomer(request.pathVariable("customerId"), customerDTO))
+        return requestValidator.patchBody(request, CustomerDTO.class)
+                .flatMap(customerDTO -> customerService.patchCustomer(request.pathVariable("customerId"), customerDTO,
+                        EntityTags.ifMatch(request)))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(savedDto -> ServerResponse.noContent().build())
-                .onErrorResume(ResponseStatusException.class, handleResponseStatusException);
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        ex -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED))
+                .flatMap(savedDto -> EntityTags.noContent(savedDto.getVersion()));
     }
 
     public Mono<ServerResponse> deleteCustomerById(ServerRequest request) {
 
-        return customerService.getCustomerById(request.pathVariable("customerId"))
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .flatMap(customerDTO -> customerService.deleteCustomerById(customerDTO.getId()))
+        return Mono.defer(() -> {
+                    Long expectedVersion = EntityTags.ifMatch(request);
+
+                    return customerService.getCustomerById(request.pathVariable("customerId"))
+                            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                            .flatMap(customerDTO -> customerService.deleteCustomerById(customerDTO.getId(), expectedVersion));
+                })
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        ex -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED))
                 .then(ServerResponse.noContent().build());
     }
 }
@@ -3,7 +3,6 @@ package com.myproject.reactivemongo.web.fn;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
@@ -22,12 +21,14 @@ public class CustomerRouterConfig {
     public RouterFunction<ServerResponse> customerResponse() {
 
         return route()
-                .GET(CUSTOMER_PATH, accept(MediaType.APPLICATION_JSON), customerHandler::listCustomers)
-                .GET(CUSTOMER_PATH_ID, accept(MediaType.APPLICATION_JSON), customerHandler::getCustomerById)
-                .POST(CUSTOMER_PATH, accept(MediaType.APPLICATION_JSON), customerHandler::createNewCustomer)
-                .PUT(CUSTOMER_PATH_ID, accept(MediaType.APPLICATION_JSON), customerHandler::updateCustomerById)
-                .PATCH(CUSTOMER_PATH_ID, accept(MediaType.APPLICATION_JSON), customerHandler::patchCustomerById)
-                .DELETE(CUSTOMER_PATH_ID, accept(MediaType.APPLICATION_JSON), customerHandler::deleteCustomerById)
+                .GET(CUSTOMER_PATH, accept(ContentTypes.ENTITY), customerHandler::listCustomers)
+                .GET(CUSTOMER_PATH, accept(ContentTypes.STREAMING), customerHandler::streamCustomers)
+                .GET(CUSTOMER_PATH_ID, accept(ContentTypes.ENTITY), customerHandler::getCustomerById)
+                .POST(CUSTOMER_PATH, accept(ContentTypes.ENTITY), customerHandler::createNewCustomer)
+                .PUT(CUSTOMER_PATH_ID, accept(ContentTypes.ENTITY), customerHandler::updateCustomerById)
+                .PATCH(CUSTOMER_PATH_ID, accept(ContentTypes.ENTITY), customerHandler::patchCustomerById)
+                .DELETE(CUSTOMER_PATH_ID, accept(ContentTypes.ENTITY), customerHandler::deleteCustomerById)
+                .filter(ProblemDetails.filter())
                 .build();
     }
 }
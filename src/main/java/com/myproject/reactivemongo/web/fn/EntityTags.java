@@ -0,0 +1,67 @@
+package com.myproject.reactivemongo.web.fn;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Strong entity tags derived from the document {@code @Version}.
+ */
+final class EntityTags {
+
+    private static final String ANY = "*";
+
+    private EntityTags() {
+    }
+
+    static String of(Long version) {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    static Mono<ServerResponse> okOrNotModified(ServerRequest request, Long version, Object body) {
+
+        String eTag = of(version);
+
+        if (eTag == null) {
+            return ContentTypes.ok(request).bodyValue(body);
+        }
+
+        return request.checkNotModified(eTag)
+                .switchIfEmpty(Mono.defer(() -> ContentTypes.ok(request).eTag(eTag).bodyValue(body)));
+    }
+
+    static Mono<ServerResponse> noContent(Long version) {
+
+        String eTag = of(version);
+
+        return eTag != null
+                ? ServerResponse.noContent().eTag(eTag).build()
+                : ServerResponse.noContent().build();
+    }
+
+    /**
+     * Returns the version required by {@code If-Match}, or {@code null} when the request is unconditional.
+     * If-Match uses strong comparison, so weak or unparseable tags can never match.
+     */
+    static Long ifMatch(ServerRequest request) {
+
+        String header = request.headers().firstHeader(HttpHeaders.IF_MATCH);
+
+        if (header == null || header.isBlank() || ANY.equals(header.trim())) {
+            return null;
+        }
+
+        String tag = header.trim();
+
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+    }
+}
@@ -0,0 +1,61 @@
+package com.myproject.reactivemongo.web.fn;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.beans.PropertyDescriptor;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses the {@code fields} query parameter into the set of DTO properties to return. The id is
+ * always selected so projected list pages can still be resumed with a cursor.
+ */
+final class FieldSelection {
+
+    static final String FIELDS_PARAM = "fields";
+    static final String ID_FIELD = "id";
+
+    static final ParameterizedTypeReference<Map<String, Object>> PROJECTED_TYPE = new ParameterizedTypeReference<>() {
+    };
+
+    private FieldSelection() {
+    }
+
+    static boolean isSelected(ServerRequest request) {
+        return request.queryParam(FIELDS_PARAM).isPresent();
+    }
+
+    static Set<String> fields(ServerRequest request, Class<?> dtoType) {
+
+        Set<String> fields = new LinkedHashSet<>();
+        fields.add(ID_FIELD);
+
+        for (String value : request.queryParams().getOrDefault(FIELDS_PARAM, List.of())) {
+            for (String field : value.split(",")) {
+                String name = field.trim();
+
+                if (name.isEmpty()) {
+                    continue;
+                }
+
+                PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(dtoType, name);
+
+                if (descriptor == null || descriptor.getReadMethod() == null || "class".equals(name)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + name);
+                }
+                fields.add(name);
+            }
+        }
+        return fields;
+    }
+
+    static String id(Map<String, Object> projected) {
+        return (String) projected.get(ID_FIELD);
+    }
+}
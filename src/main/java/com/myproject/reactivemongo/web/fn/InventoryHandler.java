@@ -0,0 +1,35 @@
+package com.myproject.reactivemongo.web.fn;
+
+import com.myproject.reactivemongo.config.InventoryProperties;
+import com.myproject.reactivemongo.services.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+@Component
+@RequiredArgsConstructor
+public class InventoryHandler {
+
+    private final InventoryService inventoryService;
+    private final InventoryProperties inventoryProperties;
+
+    public Mono<ServerResponse> stockByStyle(ServerRequest request) {
+
+        return inventoryService.stockByStyle()
+                .flatMap(report -> ServerResponse.ok().bodyValue(report));
+    }
+
+    public Mono<ServerResponse> lowStock(ServerRequest request) {
+
+        return Mono.defer(() -> {
+                    int limit = request.queryParam(PageCursor.LIMIT_PARAM).isPresent()
+                            ? PageCursor.limit(request)
+                            : inventoryProperties.getLowStockDefaultLimit();
+
+                    return inventoryService.lowStock(limit);
+                })
+                .flatMap(report -> ServerResponse.ok().bodyValue(report));
+    }
+}
@@ -0,0 +1,32 @@
+package com.myproject.reactivemongo.web.fn;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration
+@RequiredArgsConstructor
+public class InventoryRouterConfig {
+
+    public static final String INVENTORY_PATH = "/api/v3/inventory";
+    public static final String INVENTORY_PATH_BY_STYLE = INVENTORY_PATH + "/by-style";
+    public static final String INVENTORY_PATH_LOW_STOCK = INVENTORY_PATH + "/low-stock";
+
+    private final InventoryHandler inventoryHandler;
+
+    @Bean
+    public RouterFunction<ServerResponse> inventoryResponse() {
+
+        return route()
+                .GET(INVENTORY_PATH_BY_STYLE, accept(MediaType.APPLICATION_JSON), inventoryHandler::stockByStyle)
+                .GET(INVENTORY_PATH_LOW_STOCK, accept(MediaType.APPLICATION_JSON), inventoryHandler::lowStock)
+                .filter(ProblemDetails.filter())
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.myproject.reactivemongo.web.fn;
+
+import org.bson.types.ObjectId;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset cursor over {@code _id}. A page is fetched with {@code limit + 1} documents so the
+ * handler can tell whether another page exists without issuing a count.
+ */
+final class PageCursor {
+
+    static final String CURSOR_PARAM = "cursor";
+    static final String LIMIT_PARAM = "limit";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private PageCursor() {
+    }
+
+    static boolean isPaged(ServerRequest request) {
+        return request.queryParam(CURSOR_PARAM).isPresent() || request.queryParam(LIMIT_PARAM).isPresent();
+    }
+
+    static int limit(ServerRequest request) {
+
+        int limit;
+
+        try {
+            limit = request.queryParam(LIMIT_PARAM).map(Integer::parseInt).orElse(DEFAULT_LIMIT);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit");
+        }
+
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    static String afterId(ServerRequest request) {
+        return request.queryParam(CURSOR_PARAM).map(PageCursor::decode).orElse(null);
+    }
+
+    static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String cursor) {
+
+        try {
+            String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            if (ObjectId.isValid(id)) {
+                return id;
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    static <T> Mono<ServerResponse> respond(ServerRequest request, MediaType[] mediaTypes, Flux<T> page, int limit,
+                                            Function<T, String> idExtractor) {
+
+        return page.collectList()
+                .flatMap(items -> {
+                    if (items.size() <= limit) {
+                        return ContentTypes.ok(request, mediaTypes).bodyValue(items);
+                    }
+
+                    List<T> current = items.subList(0, limit);
+
+                    return ContentTypes.ok(request, mediaTypes)
+                            .header(NEXT_CURSOR_HEADER, encode(idExtractor.apply(current.get(limit - 1))))
+                            .bodyValue(current);
+                });
+    }
+}
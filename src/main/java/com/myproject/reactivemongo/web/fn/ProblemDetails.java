@@ -0,0 +1,43 @@
+package com.myproject.reactivemongo.web.fn;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * Router filter that renders {@link ErrorResponse} failures, including {@code ResponseStatusException},
+ * as RFC 7807 problem details written by the shared JSON codec.
+ */
+final class ProblemDetails {
+
+    private static final HandlerFilterFunction<ServerResponse, ServerResponse> FILTER = (request, next) ->
+            next.handle(request).onErrorResume(ErrorResponse.class::isInstance,
+                    ex -> respond(request, (ErrorResponse) ex));
+
+    private ProblemDetails() {
+    }
+
+    static HandlerFilterFunction<ServerResponse, ServerResponse> filter() {
+        return FILTER;
+    }
+
+    static Mono<ServerResponse> respond(ServerRequest request, ErrorResponse ex) {
+
+        ProblemDetail problem = ex.getBody();
+
+        if (problem.getInstance() == null) {
+            problem.setInstance(URI.create(request.path()));
+        }
+
+        return ServerResponse.status(ex.getStatusCode())
+                .headers(headers -> headers.addAll(ex.getHeaders()))
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .bodyValue(problem);
+    }
+}
@@ -0,0 +1,64 @@
+package com.myproject.reactivemongo.web.fn;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponseException;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads and validates request bodies for the handlers. Invalid bodies fail with a 400 problem
+ * detail listing every violation, which {@link ProblemDetails#filter()} turns into the response.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestValidator {
+
+    static final String ERRORS_PROPERTY = "errors";
+
+    private final Validator validator;
+
+    /**
+     * A field and the message of one constraint it violates.
+     */
+    record Violation(String field, String message) {
+    }
+
+    <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type).doOnNext(body -> check(body, false));
+    }
+
+    /**
+     * Partial updates leave absent fields null, so only the fields that are present are checked.
+     */
+    <T> Mono<T> patchBody(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type).doOnNext(body -> check(body, true));
+    }
+
+    List<Violation> violations(Object body, boolean partial) {
+
+        return validator.validate(body).stream()
+                .filter(violation -> !partial || violation.getInvalidValue() != null)
+                .map(violation -> new Violation(violation.getPropertyPath().toString(), violation.getMessage()))
+                .sorted(Comparator.comparing(Violation::field).thenComparing(Violation::message))
+                .toList();
+    }
+
+    private void check(Object body, boolean partial) {
+
+        List<Violation> violations = violations(body, partial);
+
+        if (!violations.isEmpty()) {
+            ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Validation failed");
+            problem.setProperty(ERRORS_PROPERTY, violations);
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST, problem, null);
+        }
+    }
+}
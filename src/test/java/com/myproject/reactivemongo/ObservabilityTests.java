@@ -0,0 +1,65 @@
+package com.myproject.reactivemongo;
+
+import com.myproject.reactivemongo.security.Scopes;
+import com.myproject.reactivemongo.web.fn.BeerRouterConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static com.myproject.reactivemongo.security.ScopedLogin.withScopes;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@AutoConfigureObservability
+class ObservabilityTests {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Test
+    void testPrometheusScrape() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ))
+                .get().uri(BeerRouterConfig.BEER_PATH)
+                .exchange()
+                .expectStatus().isOk();
+
+        // histogram buckets make the scrape larger than the default in-memory limit
+        String scrape = webTestClient.mutate()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(4 * 1024 * 1024))
+                .build()
+                .get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"" + BeerRouterConfig.BEER_PATH + "\"")
+                .contains("service_call_seconds_bucket{")
+                .contains("service=\"BeerService\"")
+                .contains("spring_data_mongodb_command_seconds_bucket{")
+                .contains("mongodb_driver_pool_size");
+    }
+
+    @Test
+    void testIndexUsageEndpoint() {
+
+        webTestClient.get().uri("/actuator/indexusage")
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        webTestClient.mutateWith(withScopes())
+                .get().uri("/actuator/indexusage")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.beer").isArray()
+                .jsonPath("$.customer").isArray();
+    }
+}
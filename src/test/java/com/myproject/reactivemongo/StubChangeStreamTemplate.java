@@ -0,0 +1,99 @@
+package com.myproject.reactivemongo;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Template whose change streams are scripted by the test: each subscription takes the next queued
+ * stream of its collection, or never emits when none is left. The options of every subscription are
+ * recorded.
+ */
+public class StubChangeStreamTemplate extends ReactiveMongoTemplate {
+
+    private final Map<String, Queue<Flux<ChangeStreamDocument<Document>>>> streams = new ConcurrentHashMap<>();
+    private final Map<String, BlockingQueue<ChangeStreamOptions>> options = new ConcurrentHashMap<>();
+
+    public StubChangeStreamTemplate(MongoClient client) {
+        super(client, "test");
+    }
+
+    public void stream(String collection, Flux<ChangeStreamDocument<Document>> changes) {
+        streams.computeIfAbsent(collection, key -> new ConcurrentLinkedQueue<>()).add(changes);
+    }
+
+    /**
+     * Options of the next subscription to the collection, waiting for it if needed.
+     */
+    public ChangeStreamOptions nextOptions(String collection) throws InterruptedException {
+
+        ChangeStreamOptions next = options(collection).poll(5, TimeUnit.SECONDS);
+        assertThat(next).as("change stream opened on %s", collection).isNotNull();
+        return next;
+    }
+
+    @Override
+    public <T> Flux<ChangeStreamEvent<T>> changeStream(String database, String collectionName,
+                                                       ChangeStreamOptions changeStreamOptions, Class<T> targetType) {
+
+        options(collectionName).add(changeStreamOptions);
+
+        Flux<ChangeStreamDocument<Document>> changes = streams.getOrDefault(collectionName, new ConcurrentLinkedQueue<>())
+                .poll();
+
+        return changes == null ? Flux.never()
+                : changes.map(raw -> new ChangeStreamEvent<>(raw, targetType, getConverter()));
+    }
+
+    private BlockingQueue<ChangeStreamOptions> options(String collection) {
+        return options.computeIfAbsent(collection, key -> new LinkedBlockingQueue<>());
+    }
+
+    public static ChangeStreamDocument<Document> change(String operationType, String id, String resumeToken) {
+        return change(operationType, id, resumeToken, null, null);
+    }
+
+    public static ChangeStreamDocument<Document> change(String operationType, String id, String resumeToken,
+                                                        Document fullDocument, UpdateDescription updateDescription) {
+        return change(operationType, id, resumeToken, fullDocument, null, updateDescription);
+    }
+
+    public static ChangeStreamDocument<Document> change(String operationType, String id, String resumeToken,
+                                                        Document fullDocument, Document fullDocumentBeforeChange,
+                                                        UpdateDescription updateDescription) {
+
+        BsonDocument documentKey = id == null ? null : new BsonDocument("_id", new BsonObjectId(new ObjectId(id)));
+
+        return new ChangeStreamDocument<>(operationType, token(resumeToken), null, null, fullDocument,
+                fullDocumentBeforeChange, documentKey, null, updateDescription, null, null, null, null);
+    }
+
+    public static ChangeStreamDocument<Document> changeOfKey(String operationType, BsonValue id, String resumeToken) {
+        return new ChangeStreamDocument<>(operationType, token(resumeToken), null, null, null, null,
+                new BsonDocument("_id", id), null, null, null, null, null, null);
+    }
+
+    public static BsonDocument token(String value) {
+        return new BsonDocument("_data", new BsonString(value));
+    }
+}
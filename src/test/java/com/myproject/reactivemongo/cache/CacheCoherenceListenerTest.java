@@ -0,0 +1,130 @@
+package com.myproject.reactivemongo.cache;
+
+import com.mongodb.MongoException;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.myproject.reactivemongo.StubChangeStreamTemplate;
+import com.myproject.reactivemongo.config.DocumentCacheProperties;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.myproject.reactivemongo.StubChangeStreamTemplate.change;
+import static com.myproject.reactivemongo.StubChangeStreamTemplate.token;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheCoherenceListenerTest {
+
+    MongoClient client;
+    StubChangeStreamTemplate mongoTemplate;
+    RecordingBeerCache beerCache;
+    CacheCoherenceListener listener;
+
+    @BeforeEach
+    void setUp() {
+
+        DocumentCacheProperties properties = new DocumentCacheProperties();
+        properties.getCoherence().setMinRetryBackoff(Duration.ofMillis(1));
+        properties.getCoherence().setMaxRetryBackoff(Duration.ofMillis(10));
+
+        client = MongoClients.create();
+        mongoTemplate = new StubChangeStreamTemplate(client);
+        beerCache = new RecordingBeerCache(properties);
+        listener = new CacheCoherenceListener(mongoTemplate, beerCache, new CustomerCache(properties), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+        client.close();
+    }
+
+    @Test
+    void testUpdateAndDeleteEvictDocument() throws InterruptedException {
+
+        String updated = ObjectId.get().toHexString();
+        String deleted = ObjectId.get().toHexString();
+        mongoTemplate.stream("beer", Flux.just(change("update", updated, "t1"), change("delete", deleted, "t2"))
+                .concatWith(Flux.never()));
+
+        listener.start();
+
+        assertThat(mongoTemplate.nextOptions("beer").getResumeToken()).isEmpty();
+        assertThat(beerCache.evicted).containsExactly(updated, deleted);
+        assertThat(beerCache.evictedAll).hasValue(0);
+    }
+
+    @Test
+    void testInvalidateEvictsAllAndRestarts() throws InterruptedException {
+
+        mongoTemplate.stream("beer", Flux.just(change("update", ObjectId.get().toHexString(), "t1"),
+                change("invalidate", null, "t2")));
+        mongoTemplate.stream("beer", Flux.never());
+
+        listener.start();
+
+        mongoTemplate.nextOptions("beer");
+        // an invalidated stream cannot be resumed, the next one starts from now
+        assertThat(mongoTemplate.nextOptions("beer").getResumeToken()).isEmpty();
+        assertThat(beerCache.evictedAll).hasValue(1);
+    }
+
+    @Test
+    void testResumeAfterFailure() throws InterruptedException {
+
+        String beerId = ObjectId.get().toHexString();
+        mongoTemplate.stream("beer", Flux.just(change("update", beerId, "t1"))
+                .concatWith(Flux.error(new MongoException(6, "host unreachable"))));
+        mongoTemplate.stream("beer", Flux.never());
+
+        listener.start();
+
+        mongoTemplate.nextOptions("beer");
+        assertThat(mongoTemplate.nextOptions("beer").getResumeToken()).contains(token("t1"));
+        assertThat(beerCache.evicted).containsExactly(beerId);
+        assertThat(beerCache.evictedAll).hasValue(0);
+    }
+
+    @Test
+    void testHistoryLostEvictsAllAndRestarts() throws InterruptedException {
+
+        mongoTemplate.stream("beer", Flux.just(change("update", ObjectId.get().toHexString(), "t1"))
+                .concatWith(Flux.error(new MongoException(286, "history lost"))));
+        mongoTemplate.stream("beer", Flux.never());
+
+        listener.start();
+
+        mongoTemplate.nextOptions("beer");
+        assertThat(mongoTemplate.nextOptions("beer").getResumeToken()).isEmpty();
+        assertThat(beerCache.evictedAll).hasValue(1);
+    }
+
+    static class RecordingBeerCache extends BeerCache {
+
+        final List<String> evicted = new ArrayList<>();
+        final AtomicInteger evictedAll = new AtomicInteger();
+
+        RecordingBeerCache(DocumentCacheProperties properties) {
+            super(properties);
+        }
+
+        @Override
+        public void evict(String beerId) {
+            evicted.add(beerId);
+            super.evict(beerId);
+        }
+
+        @Override
+        public void evictAll() {
+            evictedAll.incrementAndGet();
+            super.evictAll();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.myproject.reactivemongo.config;
+
+import com.myproject.reactivemongo.domain.Beer;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@SpringBootTest
+class BeerPriceMigrationTest {
+
+    @Autowired
+    BeerPriceMigration migration;
+
+    @Autowired
+    ReactiveMongoTemplate mongoTemplate;
+
+    List<ObjectId> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(supportsConvertInUpdates(), "update pipelines with $convert are not supported by the test server");
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.remove(query(where("_id").in(inserted)), Beer.class).block();
+    }
+
+    @Test
+    void testStringPricesConvertedToDecimal128() {
+
+        ObjectId stringPrice = insertBeer("12.99");
+        ObjectId decimalPrice = insertBeer(new Decimal128(new BigDecimal("7.50")));
+
+        assertThat(migration.migrate().block()).isGreaterThanOrEqualTo(1);
+
+        assertThat(price(stringPrice)).isEqualTo(new Decimal128(new BigDecimal("12.99")));
+        assertThat(price(decimalPrice)).isEqualTo(new Decimal128(new BigDecimal("7.50")));
+        assertThat(mongoTemplate.findById(stringPrice, Beer.class).block().getPrice()).isEqualByComparingTo("12.99");
+
+        // a second run finds nothing left to convert
+        assertThat(migration.migrate().block()).isZero();
+    }
+
+    @Test
+    void testPriceThatIsNotANumberLeftAsString() {
+
+        ObjectId notANumber = insertBeer("n/a");
+
+        migration.migrate().block();
+
+        assertThat(price(notANumber)).isEqualTo("n/a");
+    }
+
+    private ObjectId insertBeer(Object price) {
+
+        ObjectId id = ObjectId.get();
+        inserted.add(id);
+        mongoTemplate.insert(new Document("_id", id)
+                .append("beerName", "Migrated " + id)
+                .append("beerStyle", "Pale Ale")
+                .append("upc", UUID.randomUUID().toString())
+                .append("price", price), mongoTemplate.getCollectionName(Beer.class)).block();
+        return id;
+    }
+
+    private boolean supportsConvertInUpdates() {
+
+        String collection = "priceMigrationProbe";
+
+        return mongoTemplate.insert(new Document("price", "1"), collection)
+                .then(mongoTemplate.updateMulti(new Query(),
+                        AggregationUpdate.update().set("price").toValue(ConvertOperators.Convert.convertValueOf("price").to("decimal")),
+                        collection))
+                .thenReturn(true)
+                .onErrorReturn(false)
+                .flatMap(supported -> mongoTemplate.dropCollection(collection).thenReturn(supported))
+                .block();
+    }
+
+    private Object price(ObjectId id) {
+        return mongoTemplate.findById(id, Document.class, mongoTemplate.getCollectionName(Beer.class)).block().get("price");
+    }
+}
@@ -0,0 +1,96 @@
+package com.myproject.reactivemongo.config;
+
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.services.BeerService;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@SpringBootTest
+class BeerSearchNameMigrationTest {
+
+    @Autowired
+    BeerSearchNameMigration migration;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    ReactiveMongoTemplate mongoTemplate;
+
+    List<ObjectId> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(supportsToLowerInUpdates(), "update pipelines with $toLower are not supported by the test server");
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.remove(query(where("_id").in(inserted)), Beer.class).block();
+    }
+
+    @Test
+    void testSearchNameBackfilled() {
+
+        String beerName = "Backfilled " + UUID.randomUUID();
+        ObjectId legacy = insertBeer(new Document("beerName", beerName));
+        ObjectId current = insertBeer(new Document("beerName", "Kept").append("searchName", "kept as is"));
+
+        assertThat(migration.migrate().block()).isGreaterThanOrEqualTo(1);
+
+        assertThat(searchName(legacy)).isEqualTo(Beer.searchNameOf(beerName));
+        assertThat(searchName(current)).isEqualTo("kept as is");
+        assertThat(beerService.autocompleteBeers(beerName.toUpperCase(), 10).map(BeerDTO::getId).collectList().block())
+                .containsExactly(legacy.toHexString());
+
+        // a second run finds nothing left to fill in
+        assertThat(migration.migrate().block()).isZero();
+    }
+
+    private ObjectId insertBeer(Document beer) {
+
+        ObjectId id = ObjectId.get();
+        inserted.add(id);
+        mongoTemplate.insert(beer.append("_id", id)
+                .append("beerStyle", "Pale Ale")
+                .append("upc", UUID.randomUUID().toString()), mongoTemplate.getCollectionName(Beer.class)).block();
+        return id;
+    }
+
+    private boolean supportsToLowerInUpdates() {
+
+        String collection = "searchNameMigrationProbe";
+
+        return mongoTemplate.insert(new Document("beerName", "A"), collection)
+                .then(mongoTemplate.updateMulti(new Query(),
+                        AggregationUpdate.update().set("searchName").toValue(StringOperators.ToLower.lowerValueOf("beerName")),
+                        collection))
+                .thenReturn(true)
+                .onErrorReturn(false)
+                .flatMap(supported -> mongoTemplate.dropCollection(collection).thenReturn(supported))
+                .block();
+    }
+
+    private Object searchName(ObjectId id) {
+        return mongoTemplate.findById(id, Document.class, mongoTemplate.getCollectionName(Beer.class)).block().get("searchName");
+    }
+}
@@ -0,0 +1,109 @@
+package com.myproject.reactivemongo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and failure counts per operation. Only successful requests are recorded in the
+ * histograms; failures are counted by HTTP status or exception type.
+ */
+class LatencyReport {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Recorder> latencies = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LongAdder>> failures = new ConcurrentHashMap<>();
+
+    void success(String operation, long latencyNanos) {
+        latencies.computeIfAbsent(operation, key -> new Recorder(MAX_LATENCY_NANOS, 3))
+                .recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+    }
+
+    void failure(String operation, String reason) {
+        failures.computeIfAbsent(operation, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(reason, key -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Drops everything recorded so far, e.g. at the end of the warm-up.
+     */
+    void reset() {
+        latencies.values().forEach(Recorder::reset);
+        failures.clear();
+    }
+
+    Summary summarize(Duration elapsed) {
+
+        Map<String, Histogram> histograms = new TreeMap<>();
+        latencies.forEach((operation, recorder) -> histograms.put(operation, recorder.getIntervalHistogram()));
+        failures.keySet().forEach(operation ->
+                histograms.computeIfAbsent(operation, key -> new Histogram(MAX_LATENCY_NANOS, 3)));
+
+        List<Row> rows = new ArrayList<>();
+        Histogram allLatencies = new Histogram(MAX_LATENCY_NANOS, 3);
+        Map<String, Long> allFailures = new TreeMap<>();
+
+        histograms.forEach((operation, histogram) -> {
+            Map<String, Long> operationFailures = new TreeMap<>();
+            failures.getOrDefault(operation, Map.of())
+                    .forEach((reason, count) -> operationFailures.put(reason, count.sum()));
+
+            rows.add(row(operation, histogram, operationFailures, elapsed));
+            allLatencies.add(histogram);
+            operationFailures.forEach((reason, count) -> allFailures.merge(reason, count, Long::sum));
+        });
+
+        return new Summary(elapsed.toMillis(), rows, row("total", allLatencies, allFailures, elapsed));
+    }
+
+    private static Row row(String operation, Histogram histogram, Map<String, Long> failures, Duration elapsed) {
+
+        long errors = failures.values().stream().mapToLong(Long::longValue).sum();
+        long requests = histogram.getTotalCount() + errors;
+
+        return new Row(operation, requests, errors,
+                requests == 0 ? 0 : (double) errors / requests,
+                requests / (elapsed.toNanos() / 1e9),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                failures);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    record Row(String operation, long requests, long errors, double errorRate, double throughput,
+               double p50Millis, double p99Millis, double p999Millis, double maxMillis, Map<String, Long> failures) {
+    }
+
+    record Summary(long elapsedMillis, List<Row> operations, Row total) {
+
+        String table() {
+
+            StringBuilder table = new StringBuilder(String.format("%-22s %10s %8s %8s %10s %9s %9s %9s %9s%n",
+                    "operation", "requests", "errors", "err %", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+
+            operations.forEach(row -> table.append(format(row)));
+            return table.append(format(total)).toString();
+        }
+
+        private static String format(Row row) {
+            return String.format("%-22s %10d %8d %8.3f %10.1f %9.2f %9.2f %9.2f %9.2f%n", row.operation(),
+                    row.requests(), row.errors(), row.errorRate() * 100, row.throughput(), row.p50Millis(),
+                    row.p99Millis(), row.p999Millis(), row.maxMillis());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.myproject.reactivemongo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a mixed read/write workload over HTTP against the application, with tokens signed by
+ * {@link LocalJwtIssuer}. Run it with the {@code load-test} profile:
+ * <pre>
+ * ./mvnw test -Pload-test -Dloadtest.concurrency=64 -Dloadtest.duration=2m
+ * </pre>
+ * Mongo is an in-process server unless {@code loadtest.mongo-uri} names a real one. The in-process
+ * server takes milliseconds per command, so capacity numbers should come from a real mongod.
+ * <p>
+ * The report is logged and written to {@code target/load-test/report.json}; the test fails when the
+ * error rate exceeds {@code loadtest.max-error-rate}.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoadTest {
+
+    private static final Path REPORT = Path.of("target", "load-test", "report.json");
+
+    private static final LocalJwtIssuer JWT_ISSUER = new LocalJwtIssuer();
+
+    private static MongoServer mongoServer;
+
+    @LocalServerPort
+    int port;
+
+    @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
+    String issuer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${loadtest.concurrency:32}")
+    int concurrency;
+
+    @Value("${loadtest.warmup:10s}")
+    String warmup;
+
+    @Value("${loadtest.duration:30s}")
+    String duration;
+
+    @Value("${loadtest.write-ratio:0.2}")
+    double writeRatio;
+
+    @Value("${loadtest.seed-beers:500}")
+    int seedBeers;
+
+    @Value("${loadtest.seed-customers:200}")
+    int seedCustomers;
+
+    @Value("${loadtest.request-timeout:10s}")
+    String requestTimeout;
+
+    @Value("${loadtest.max-error-rate:0.001}")
+    double maxErrorRate;
+
+    @DynamicPropertySource
+    static void environment(DynamicPropertyRegistry registry) {
+
+        // the issuer is not running, so the application starts from the local JWK set
+        registry.add("security.jwt.fallback-jwk-set", () -> "file:" + JWT_ISSUER.writeJwkSet());
+
+        String uri = System.getProperty("loadtest.mongo-uri");
+
+        if (uri == null) {
+            mongoServer = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = mongoServer.bind();
+            uri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/loadtest";
+        }
+
+        String mongoUri = uri;
+        registry.add("spring.data.mongodb.uri", () -> mongoUri);
+    }
+
+    @AfterAll
+    static void stopMongo() {
+
+        if (mongoServer != null) {
+            mongoServer.shutdownNow();
+        }
+    }
+
+    @Test
+    void mixedWorkload() throws IOException {
+
+        String token = JWT_ISSUER.token(issuer, "load-test", Duration.ofHours(1));
+
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+
+        Workload workload = new Workload(client, writeRatio);
+        workload.seed(seedBeers, seedCustomers).block();
+
+        LatencyReport report = new LatencyReport();
+        run(workload, report, DurationStyle.detectAndParse(warmup));
+        report.reset();
+
+        Duration measured = DurationStyle.detectAndParse(duration);
+        long start = System.nanoTime();
+        run(workload, report, measured);
+        LatencyReport.Summary summary = report.summarize(Duration.ofNanos(System.nanoTime() - start));
+
+        log.info("Load test: concurrency {}, write ratio {}, {}\n{}", concurrency, writeRatio, measured,
+                summary.table());
+        write(workload, summary);
+
+        assertThat(summary.total().requests()).isPositive();
+        assertThat(summary.total().errorRate())
+                .as("error rate, failures %s", summary.total().failures())
+                .isLessThanOrEqualTo(maxErrorRate);
+    }
+
+    /**
+     * Closed loop: each of the {@code concurrency} workers sends its next request as soon as the
+     * previous one completes, until the duration has passed.
+     */
+    private void run(Workload workload, LatencyReport report, Duration duration) {
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        Duration timeout = DurationStyle.detectAndParse(requestTimeout);
+
+        Flux.range(0, concurrency)
+                .flatMap(worker -> Mono.defer(() -> request(workload.next(), report, timeout))
+                        .repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast();
+    }
+
+    private static Mono<Void> request(Workload.Operation operation, LatencyReport report, Duration timeout) {
+
+        long start = System.nanoTime();
+
+        return operation.call().get()
+                .timeout(timeout)
+                .doOnNext(outcome -> {
+                    if (outcome.status().isError()) {
+                        report.failure(outcome.operation(), String.valueOf(outcome.status().value()));
+                    } else {
+                        report.success(outcome.operation(), System.nanoTime() - start);
+                    }
+                })
+                .onErrorResume(ex -> {
+                    report.failure(operation.name(), ex.getClass().getSimpleName());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void write(Workload workload, LatencyReport.Summary summary) throws IOException {
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("concurrency", concurrency);
+        settings.put("warmup", warmup);
+        settings.put("duration", duration);
+        settings.put("writeRatio", writeRatio);
+        settings.put("seedBeers", seedBeers);
+        settings.put("seedCustomers", seedCustomers);
+        settings.put("mix", workload.mix());
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("settings", settings);
+        document.put("summary", summary);
+
+        Files.createDirectories(REPORT.getParent());
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT.toFile(), document);
+    }
+}
@@ -0,0 +1,77 @@
+package com.myproject.reactivemongo.loadtest;
+
+import com.myproject.reactivemongo.security.Scopes;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Stands in for the authorization server: tokens are signed with a key generated for the run, and
+ * the public key is handed to the application as its local fallback JWK set.
+ */
+class LocalJwtIssuer {
+
+    /**
+     * Every scope the workload needs, including deleting customers.
+     */
+    static final String SCOPES = String.join(" ", Scopes.BEER_READ, Scopes.BEER_WRITE, Scopes.CUSTOMER_READ,
+            Scopes.CUSTOMER_WRITE, Scopes.CUSTOMER_ADMIN);
+
+    private final RSAKey signingKey;
+    private final JwtEncoder encoder;
+
+    LocalJwtIssuer() {
+
+        try {
+            this.signingKey = new RSAKeyGenerator(2048).keyID(UUID.randomUUID().toString()).generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+        this.encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(signingKey)));
+    }
+
+    /**
+     * Writes the public JWK set to a temporary file, for {@code security.jwt.fallback-jwk-set}.
+     */
+    Path writeJwkSet() {
+
+        try {
+            Path file = Files.createTempFile("load-test-jwks", ".json");
+            file.toFile().deleteOnExit();
+            return Files.writeString(file, new JWKSet(signingKey.toPublicJWK()).toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    String token(String issuer, String subject, Duration ttl) {
+
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject(subject)
+                .issuedAt(now)
+                .expiresAt(now.plus(ttl))
+                .claim("scope", SCOPES)
+                .build();
+
+        return encoder.encode(JwtEncoderParameters.from(JwsHeader.with(SignatureAlgorithm.RS256).build(), claims))
+                .getTokenValue();
+    }
+}
@@ -0,0 +1,292 @@
+package com.myproject.reactivemongo.loadtest;
+
+import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.BulkItemResult;
+import com.myproject.reactivemongo.model.CustomerDTO;
+import com.myproject.reactivemongo.web.fn.BeerRouterConfig;
+import com.myproject.reactivemongo.web.fn.CustomerRouterConfig;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Weighted mix of requests over every beer and customer route except the change stream.
+ * <p>
+ * Reads go to seeded documents that are never modified. Updates, patches and deletes take an id
+ * from a pool of documents created by the workload itself, so two requests never race on the same
+ * document and a healthy run has no 404 or 412 responses.
+ */
+class Workload {
+
+    static final int STYLES = 10;
+    static final int BULK_SIZE = 10;
+    static final int PAGE_SIZE = 25;
+
+    private final WebClient client;
+    private final List<Operation> operations = new ArrayList<>();
+    private final double totalWeight;
+
+    private final List<String> beerIds = new ArrayList<>();
+    private final List<String> customerIds = new ArrayList<>();
+    private final Queue<String> ownedBeerIds = new ConcurrentLinkedQueue<>();
+    private final Queue<String> ownedCustomerIds = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A request outcome, named after the operation that actually ran.
+     */
+    record Outcome(String operation, HttpStatusCode status) {
+    }
+
+    record Operation(String name, boolean write, double weight, Supplier<Mono<Outcome>> call) {
+    }
+
+    Workload(WebClient client, double writeRatio) {
+
+        this.client = client;
+
+        read("beer.list", 3, () -> send("beer.list", client.get()
+                .uri(uri -> uri.path(BeerRouterConfig.BEER_PATH)
+                        .queryParam("beerStyle", style(random(STYLES)))
+                        .queryParam("limit", PAGE_SIZE)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)));
+        read("beer.stream", 1, () -> send("beer.stream", client.get()
+                .uri(uri -> uri.path(BeerRouterConfig.BEER_PATH)
+                        .queryParam("beerStyle", style(random(STYLES)))
+                        .build())
+                .accept(MediaType.APPLICATION_NDJSON)));
+        read("beer.search", 2, () -> send("beer.search", client.get()
+                .uri(uri -> uri.path(BeerRouterConfig.BEER_PATH_SEARCH)
+                        .queryParam("q", "Load Beer " + random(10))
+                        .queryParam("prefix", true)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)));
+        read("beer.get", 6, () -> send("beer.get", client.get()
+                .uri(BeerRouterConfig.BEER_PATH_ID, any(beerIds))
+                .accept(MediaType.APPLICATION_JSON)));
+        read("customer.list", 2, () -> send("customer.list", client.get()
+                .uri(uri -> uri.path(CustomerRouterConfig.CUSTOMER_PATH).queryParam("limit", PAGE_SIZE).build())
+                .accept(MediaType.APPLICATION_JSON)));
+        read("customer.stream", 1, () -> send("customer.stream", client.get()
+                .uri(CustomerRouterConfig.CUSTOMER_PATH)
+                .accept(MediaType.APPLICATION_NDJSON)));
+        read("customer.get", 5, () -> send("customer.get", client.get()
+                .uri(CustomerRouterConfig.CUSTOMER_PATH_ID, any(customerIds))
+                .accept(MediaType.APPLICATION_JSON)));
+
+        write("beer.create", 3, this::createBeer);
+        write("beer.bulk", 1, () -> send("beer.bulk", client.post()
+                .uri(BeerRouterConfig.BEER_PATH_BULK)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(IntStream.range(0, BULK_SIZE).mapToObj(i -> newBeer()).toList())));
+        write("beer.update", 2, () -> withOwned(ownedBeerIds, this::createBeer, id -> send("beer.update",
+                client.put().uri(BeerRouterConfig.BEER_PATH_ID, id).bodyValue(newBeer()))));
+        write("beer.patch", 2, () -> withOwned(ownedBeerIds, this::createBeer, id -> send("beer.patch",
+                client.patch().uri(BeerRouterConfig.BEER_PATH_ID, id)
+                        .bodyValue(BeerDTO.builder().quantityOnHand(random(500)).build()))));
+        write("beer.delete", 3, () -> delete(ownedBeerIds, this::createBeer, "beer.delete",
+                BeerRouterConfig.BEER_PATH_ID));
+        write("customer.create", 2, this::createCustomer);
+        write("customer.update", 1, () -> withOwned(ownedCustomerIds, this::createCustomer,
+                id -> send("customer.update", client.put().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, id)
+                        .bodyValue(newCustomer()))));
+        write("customer.patch", 1, () -> withOwned(ownedCustomerIds, this::createCustomer,
+                id -> send("customer.patch", client.patch().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, id)
+                        .bodyValue(newCustomer()))));
+        write("customer.delete", 2, () -> delete(ownedCustomerIds, this::createCustomer, "customer.delete",
+                CustomerRouterConfig.CUSTOMER_PATH_ID));
+
+        double readWeight = weight(false);
+        double writeWeight = weight(true);
+        operations.replaceAll(operation -> new Operation(operation.name(), operation.write(),
+                operation.weight() / (operation.write() ? writeWeight : readWeight)
+                        * (operation.write() ? writeRatio : 1 - writeRatio),
+                operation.call()));
+        this.totalWeight = weight(true) + weight(false);
+    }
+
+    /**
+     * Creates the read-only documents and an initial pool of documents to update and delete.
+     */
+    Mono<Void> seed(int beers, int customers) {
+
+        Mono<Void> seedBeers = client.post()
+                .uri(BeerRouterConfig.BEER_PATH_BULK)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(IntStream.range(0, beers).mapToObj(i -> newBeer()).toList())
+                .retrieve()
+                .bodyToFlux(BulkItemResult.class)
+                .map(BulkItemResult::getId)
+                .doOnNext(beerIds::add)
+                .then();
+
+        Mono<Void> seedCustomers = Flux.range(0, customers)
+                .concatMap(i -> client.post()
+                        .uri(CustomerRouterConfig.CUSTOMER_PATH)
+                        .bodyValue(newCustomer())
+                        .retrieve()
+                        .toBodilessEntity())
+                .map(response -> id(response.getHeaders().getLocation()))
+                .doOnNext(customerIds::add)
+                .then();
+
+        Mono<Void> owned = Flux.range(0, Math.max(1, beers / 10))
+                .concatMap(i -> createBeer())
+                .thenMany(Flux.range(0, Math.max(1, customers / 10)).concatMap(i -> createCustomer()))
+                .then();
+
+        return seedBeers.then(seedCustomers).then(owned);
+    }
+
+    Operation next() {
+
+        double pick = ThreadLocalRandom.current().nextDouble(totalWeight);
+
+        for (Operation operation : operations) {
+            pick -= operation.weight();
+
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    Map<String, Double> mix() {
+
+        Map<String, Double> mix = new TreeMap<>();
+        operations.forEach(operation -> mix.put(operation.name(), operation.weight() / totalWeight));
+        return mix;
+    }
+
+    private void read(String name, double weight, Supplier<Mono<Outcome>> call) {
+        operations.add(new Operation(name, false, weight, call));
+    }
+
+    private void write(String name, double weight, Supplier<Mono<Outcome>> call) {
+        operations.add(new Operation(name, true, weight, call));
+    }
+
+    private double weight(boolean write) {
+        return operations.stream().filter(operation -> operation.write() == write)
+                .mapToDouble(Operation::weight).sum();
+    }
+
+    private Mono<Outcome> createBeer() {
+
+        return client.post()
+                .uri(BeerRouterConfig.BEER_PATH)
+                .bodyValue(newBeer())
+                .exchangeToMono(response -> drain(response)
+                        .doOnNext(status -> created(ownedBeerIds, response))
+                        .map(status -> new Outcome("beer.create", status)));
+    }
+
+    private Mono<Outcome> createCustomer() {
+
+        return client.post()
+                .uri(CustomerRouterConfig.CUSTOMER_PATH)
+                .bodyValue(newCustomer())
+                .exchangeToMono(response -> drain(response)
+                        .doOnNext(status -> created(ownedCustomerIds, response))
+                        .map(status -> new Outcome("customer.create", status)));
+    }
+
+    /**
+     * Runs {@code call} with an id taken out of the pool and puts it back afterwards, or creates a
+     * document instead when the pool is empty.
+     */
+    private static Mono<Outcome> withOwned(Queue<String> pool, Supplier<Mono<Outcome>> create,
+                                           Function<String, Mono<Outcome>> call) {
+
+        String id = pool.poll();
+
+        if (id == null) {
+            return create.get();
+        }
+        return call.apply(id).doFinally(signal -> pool.offer(id));
+    }
+
+    private Mono<Outcome> delete(Queue<String> pool, Supplier<Mono<Outcome>> create, String operation, String path) {
+
+        String id = pool.poll();
+
+        if (id == null) {
+            return create.get();
+        }
+        return send(operation, client.delete().uri(path, id));
+    }
+
+    private Mono<Outcome> send(String operation, WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(response -> drain(response).map(status -> new Outcome(operation, status)));
+    }
+
+    /**
+     * Reads the whole body, so streamed responses are timed to their last element.
+     */
+    private static Mono<HttpStatusCode> drain(ClientResponse response) {
+        return response.bodyToFlux(DataBuffer.class)
+                .doOnNext(DataBufferUtils::release)
+                .then(Mono.just(response.statusCode()));
+    }
+
+    private static void created(Queue<String> pool, ClientResponse response) {
+
+        if (response.statusCode().is2xxSuccessful()) {
+            pool.offer(id(response.headers().asHttpHeaders().getLocation()));
+        }
+    }
+
+    private static String id(URI location) {
+        String path = location.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static BeerDTO newBeer() {
+
+        int number = random(1000);
+
+        return BeerDTO.builder()
+                .beerName("Load Beer " + number)
+                .beerStyle(style(number % STYLES))
+                .upc(UUID.randomUUID().toString())
+                .quantityOnHand(random(500))
+                .price(BigDecimal.valueOf(500 + random(1500), 2))
+                .build();
+    }
+
+    private static CustomerDTO newCustomer() {
+        return CustomerDTO.builder().customerName("Load Customer " + random(100_000)).build();
+    }
+
+    private static String style(int index) {
+        return "Load Style " + index;
+    }
+
+    private static <T> T any(List<T> values) {
+        return values.get(random(values.size()));
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+}
@@ -0,0 +1,130 @@
+package com.myproject.reactivemongo.queryplan;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.myproject.reactivemongo.config.QueryPlanGuardProperties;
+import com.myproject.reactivemongo.domain.Beer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Runs against the test database, with the explain answered from canned plans so the outcome does not
+ * depend on the indexes or the explain support of the server.
+ */
+class QueryPlanGuardingMongoTemplateTest {
+
+    // price is only indexed behind beerStyle
+    private static final Query UNINDEXED = new Query(where("price").is(new BigDecimal("5.00")));
+
+    MongoClient client;
+    QueryPlanGuardProperties properties = new QueryPlanGuardProperties();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    Document explain;
+    QueryPlanGuardingMongoTemplate template;
+
+    @BeforeEach
+    void setUp() {
+
+        properties.setEnabled(true);
+        properties.setSampleRate(1);
+        properties.setStrict(true);
+        properties.setCollectionScanThreshold(0);
+
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        client = MongoClients.create();
+        template = new QueryPlanGuardingMongoTemplate(new SimpleReactiveMongoDatabaseFactory(client, "query-plan-guard"),
+                converter, properties, meterRegistry) {
+            @Override
+            Mono<QueryPlan> explain(String collectionName, Document filter, Document sort, int limit) {
+                return Mono.just(QueryPlan.from(explain));
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void testStrictRejectsCollectionScan() {
+
+        explain = plan("{\"stage\": \"COLLSCAN\"}");
+
+        assertThatThrownBy(() -> template.find(UNINDEXED, Beer.class).collectList().block())
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("collection scan");
+        assertThat(meterRegistry.get("mongo.query.plan.explained").tag("stage", "COLLSCAN").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testStrictAllowsIndexScan() {
+
+        explain = plan("{\"stage\": \"FETCH\", \"inputStage\": {\"stage\": \"IXSCAN\"}}");
+
+        assertThat(template.find(UNINDEXED, Beer.class).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void testStrictAllowsScanBelowThreshold() {
+
+        properties.setCollectionScanThreshold(1_000);
+        explain = plan("{\"stage\": \"COLLSCAN\"}");
+
+        assertThat(template.find(UNINDEXED, Beer.class).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void testStrictRejectsUnselectiveIndex() {
+
+        explain = Document.parse("""
+                {"queryPlanner": {"winningPlan": {"stage": "FETCH", "inputStage": {"stage": "IXSCAN"}}},
+                 "executionStats": {"nReturned": 2, "totalKeysExamined": 5000, "totalDocsExamined": 5000}}
+                """);
+
+        assertThatThrownBy(() -> template.find(UNINDEXED, Beer.class).collectList().block())
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("examines 5000 documents for 2 returned");
+        assertThat(meterRegistry.get("mongo.query.plan.docs.examined").summary().totalAmount()).isEqualTo(5000);
+    }
+
+    @Test
+    void testLenientOnlyRecords() {
+
+        properties.setStrict(false);
+        explain = plan("{\"stage\": \"COLLSCAN\"}");
+
+        assertThat(template.find(UNINDEXED, Beer.class).collectList().block()).isEmpty();
+    }
+
+    private static Document plan(String winningPlan) {
+        return Document.parse("{\"queryPlanner\": {\"winningPlan\": " + winningPlan + "}}");
+    }
+}
@@ -0,0 +1,72 @@
+package com.myproject.reactivemongo.queryplan;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryPlanTest {
+
+    @Test
+    void testCollectionScan() {
+
+        QueryPlan plan = QueryPlan.from(Document.parse("""
+                {"queryPlanner": {"winningPlan": {"stage": "COLLSCAN", "filter": {"beerName": {"$eq": "x"}}}},
+                 "executionStats": {"nReturned": 1, "totalKeysExamined": 0, "totalDocsExamined": 2500}}
+                """));
+
+        assertThat(plan.isCollectionScan()).isTrue();
+        assertThat(plan.hasExecutionStats()).isTrue();
+        assertThat(plan.docsExamined()).isEqualTo(2500);
+        assertThat(plan.docsExaminedPerReturned()).isEqualTo(2500);
+    }
+
+    @Test
+    void testIndexScan() {
+
+        QueryPlan plan = QueryPlan.from(Document.parse("""
+                {"queryPlanner": {"winningPlan": {"stage": "FETCH",
+                    "inputStage": {"stage": "IXSCAN", "indexName": "beerName"}}},
+                 "executionStats": {"nReturned": 3, "totalKeysExamined": 3, "totalDocsExamined": 3}}
+                """));
+
+        assertThat(plan.stage()).isEqualTo("IXSCAN");
+        assertThat(plan.isCollectionScan()).isFalse();
+        assertThat(plan.keysExamined()).isEqualTo(3);
+        assertThat(plan.docsExaminedPerReturned()).isEqualTo(1);
+    }
+
+    @Test
+    void testSortStageOverCollectionScan() {
+
+        QueryPlan plan = QueryPlan.from(Document.parse("""
+                {"queryPlanner": {"winningPlan": {"stage": "SORT", "sortPattern": {"createdDate": 1},
+                    "inputStage": {"stage": "COLLSCAN"}}}}
+                """));
+
+        assertThat(plan.isCollectionScan()).isTrue();
+        assertThat(plan.hasExecutionStats()).isFalse();
+    }
+
+    @Test
+    void testSortStageOverIndexScans() {
+
+        QueryPlan plan = QueryPlan.from(Document.parse("""
+                {"queryPlanner": {"winningPlan": {"stage": "SORT_MERGE", "inputStages": [
+                    {"stage": "FETCH", "inputStage": {"stage": "IXSCAN"}},
+                    {"stage": "FETCH", "inputStage": {"stage": "IXSCAN"}}]}}}
+                """));
+
+        assertThat(plan.stage()).isEqualTo("IXSCAN");
+    }
+
+    @Test
+    void testSlotBasedPlan() {
+
+        QueryPlan plan = QueryPlan.from(Document.parse("""
+                {"queryPlanner": {"winningPlan": {"queryPlan": {"stage": "COLLSCAN"}, "slotBasedPlan": {}}}}
+                """));
+
+        assertThat(plan.isCollectionScan()).isTrue();
+    }
+}
@@ -0,0 +1,160 @@
+package com.myproject.reactivemongo.security;
+
+import com.myproject.reactivemongo.config.JwtDecoderProperties;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingJwtDecoderTest {
+
+    private static final String ISSUER = "http://localhost:9000";
+
+    RSAKey signingKey;
+    RSAKey issuerKey;
+    JwkSetCache jwkSetCache;
+    AtomicBoolean issuerUp = new AtomicBoolean();
+    CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() throws JOSEException {
+
+        signingKey = rsaKey();
+        issuerKey = rsaKey();
+
+        JwtDecoderProperties properties = new JwtDecoderProperties();
+        properties.setFallbackJwkSet(new ByteArrayResource(
+                new JWKSet(signingKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8)));
+
+        OAuth2ResourceServerProperties resourceServer = new OAuth2ResourceServerProperties();
+        resourceServer.getJwt().setIssuerUri(ISSUER);
+
+        // once up, the issuer advertises its JWK set in the OpenID configuration and serves only issuerKey
+        WebClient.Builder issuer = WebClient.builder().exchangeFunction(request -> Mono.just(!issuerUp.get()
+                ? ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()
+                : ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(request.url().getPath().endsWith("openid-configuration")
+                                ? "{\"jwks_uri\":\"" + ISSUER + "/oauth2/jwks\"}"
+                                : new JWKSet(issuerKey.toPublicJWK()).toString())
+                        .build()));
+
+        jwkSetCache = new JwkSetCache(properties, resourceServer, issuer);
+        decoder = new CachingJwtDecoder(jwkSetCache, properties, resourceServer,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    }
+
+    @Test
+    void testDecodeWithFallbackKeys() {
+
+        Jwt jwt = decoder.decode(token(signingKey, ISSUER, Instant.now().plusSeconds(300))).block();
+
+        assertThat(jwt.getSubject()).isEqualTo("tester");
+        assertThat(jwt.getIssuer().toString()).isEqualTo(ISSUER);
+    }
+
+    @Test
+    void testVerifiedTokenIsRemembered() {
+
+        String token = token(signingKey, ISSUER, Instant.now().plusSeconds(300));
+
+        assertThat(decoder.decode(token).block()).isSameAs(decoder.decode(token).block());
+    }
+
+    @Test
+    void testFetchedKeysReplaceFallbackKeys() {
+
+        String fallbackToken = token(signingKey, ISSUER, Instant.now().plusSeconds(300));
+        String issuerToken = token(issuerKey, ISSUER, Instant.now().plusSeconds(300));
+
+        assertThat(decoder.decode(fallbackToken).block()).isNotNull();
+
+        issuerUp.set(true);
+        jwkSetCache.refresh().block();
+
+        assertThat(decoder.decode(issuerToken).block().getSubject()).isEqualTo("tester");
+        // remembered, but its key is no longer published
+        assertThatThrownBy(() -> decoder.decode(fallbackToken).block()).isInstanceOf(BadJwtException.class);
+    }
+
+    @Test
+    void testTamperedTokenRejected() {
+
+        String[] parts = token(signingKey, ISSUER, Instant.now().plusSeconds(300)).split("\\.");
+        String tampered = parts[0] + "." + parts[1].substring(0, parts[1].length() - 2) + "AA." + parts[2];
+
+        assertThatThrownBy(() -> decoder.decode(tampered).block()).isInstanceOf(BadJwtException.class);
+    }
+
+    @Test
+    void testUnknownKeyRejected() throws JOSEException {
+
+        String token = token(rsaKey(), ISSUER, Instant.now().plusSeconds(300));
+
+        assertThatThrownBy(() -> decoder.decode(token).block()).isInstanceOf(BadJwtException.class);
+    }
+
+    @Test
+    void testExpiredTokenRejected() {
+
+        String token = token(signingKey, ISSUER, Instant.now().minus(Duration.ofMinutes(5)));
+
+        assertThatThrownBy(() -> decoder.decode(token).block()).isInstanceOf(JwtValidationException.class);
+    }
+
+    @Test
+    void testWrongIssuerRejected() {
+
+        String token = token(signingKey, "http://elsewhere:9000", Instant.now().plusSeconds(300));
+
+        assertThatThrownBy(() -> decoder.decode(token).block()).isInstanceOf(JwtValidationException.class);
+    }
+
+    private static RSAKey rsaKey() throws JOSEException {
+        return new RSAKeyGenerator(2048).keyID(UUID.randomUUID().toString()).generate();
+    }
+
+    private static String token(RSAKey key, String issuer, Instant expiresAt) {
+
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject("tester")
+                .issuedAt(expiresAt.minus(Duration.ofMinutes(10)))
+                .expiresAt(expiresAt)
+                .build();
+
+        return new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(key)))
+                .encode(JwtEncoderParameters.from(JwsHeader.with(SignatureAlgorithm.RS256).build(), claims))
+                .getTokenValue();
+    }
+}
@@ -0,0 +1,72 @@
+package com.myproject.reactivemongo.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScopeAuthenticationConverterTest {
+
+    ScopeAuthenticationConverter converter = new ScopeAuthenticationConverter();
+
+    @Test
+    void testScopeClaimAsString() {
+
+        ScopedAuthenticationToken token = convert(jwt("scope", "beer.read  beer.write"));
+
+        assertThat(token.getAuthorityNames()).containsExactlyInAnyOrder("SCOPE_beer.read", "SCOPE_beer.write");
+        assertThat(token.getAuthorities()).containsExactlyInAnyOrder(
+                new SimpleGrantedAuthority("SCOPE_beer.read"), new SimpleGrantedAuthority("SCOPE_beer.write"));
+        assertThat(token.getName()).isEqualTo("tester");
+    }
+
+    @Test
+    void testScpClaimAsList() {
+
+        ScopedAuthenticationToken token = convert(jwt("scp", List.of("customer.admin")));
+
+        assertThat(token.getAuthorityNames()).containsExactly("SCOPE_customer.admin");
+    }
+
+    @Test
+    void testNoScopes() {
+        assertThat(convert(jwt("other", "beer.read")).getAuthorityNames()).isEmpty();
+    }
+
+    @Test
+    void testAuthorizationManager() {
+
+        ScopeAuthorizationManager manager = ScopeAuthorizationManager.anyScope(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_ADMIN);
+
+        assertThat(isGranted(manager, convert(jwt("scope", "customer.admin")))).isTrue();
+        assertThat(isGranted(manager, convert(jwt("scope", "beer.read customer.write")))).isFalse();
+        assertThat(isGranted(manager, new TestingAuthenticationToken("tester", null, "SCOPE_customer.read"))).isTrue();
+        assertThat(manager.check(Mono.empty(), null).block().isGranted()).isFalse();
+    }
+
+    private ScopedAuthenticationToken convert(Jwt jwt) {
+        AbstractAuthenticationToken token = converter.convert(jwt).block();
+        assertThat(token).isInstanceOf(ScopedAuthenticationToken.class);
+        return (ScopedAuthenticationToken) token;
+    }
+
+    private static boolean isGranted(ScopeAuthorizationManager manager, AbstractAuthenticationToken token) {
+        AuthorizationDecision decision = manager.check(Mono.just(token), null).block();
+        return decision.isGranted();
+    }
+
+    private static Jwt jwt(String claim, Object value) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("tester")
+                .claim(claim, value)
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.myproject.reactivemongo.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.OAuth2LoginMutator;
+
+import java.util.Arrays;
+
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockOAuth2Login;
+
+/**
+ * Test logins granted exactly the given scopes.
+ */
+public final class ScopedLogin {
+
+    private ScopedLogin() {
+    }
+
+    public static OAuth2LoginMutator withScopes(String... scopes) {
+        return mockOAuth2Login().authorities(Arrays.stream(scopes)
+                .map(scope -> new SimpleGrantedAuthority(Scopes.AUTHORITY_PREFIX + scope))
+                .toArray(SimpleGrantedAuthority[]::new));
+    }
+}
@@ -0,0 +1,139 @@
+package com.myproject.reactivemongo.services;
+
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.myproject.reactivemongo.StubChangeStreamTemplate;
+import com.myproject.reactivemongo.mappers.BeerMapperImpl;
+import com.myproject.reactivemongo.model.BeerChangeEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static com.myproject.reactivemongo.StubChangeStreamTemplate.change;
+import static com.myproject.reactivemongo.StubChangeStreamTemplate.changeOfKey;
+import static com.myproject.reactivemongo.StubChangeStreamTemplate.token;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeerChangeServiceImplTest {
+
+    MongoClient client;
+    StubChangeStreamTemplate mongoTemplate;
+    BeerChangeServiceImpl beerChangeService;
+
+    @BeforeEach
+    void setUp() {
+        client = MongoClients.create();
+        mongoTemplate = new StubChangeStreamTemplate(client);
+        beerChangeService = new BeerChangeServiceImpl(mongoTemplate, new BeerMapperImpl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void testInsertAndUpdateEvents() {
+
+        String beerId = ObjectId.get().toHexString();
+        mongoTemplate.stream("beer", Flux.just(
+                change("insert", beerId, "82A1", beer(beerId, "Pale Ale", 25), null),
+                change("update", beerId, "82A2", null, new UpdateDescription(List.of(),
+                        new BsonDocument("quantityOnHand", new BsonInt32(12))))));
+
+        List<BeerChangeEvent> events = beerChangeService.changes(null, null, null).collectList().block();
+
+        assertThat(events).extracting(BeerChangeEvent::getOperationType).containsExactly("insert", "update");
+        assertThat(events).extracting(BeerChangeEvent::getResumeToken).containsExactly("82A1", "82A2");
+        assertThat(events).extracting(BeerChangeEvent::getBeerId).containsOnly(beerId);
+        assertThat(events.get(0).getBeer().getBeerName()).isEqualTo("Beer " + beerId);
+        assertThat(events.get(1).getUpdatedFields()).containsExactly("quantityOnHand");
+        assertThat(events.get(1).getBeer().getQuantityOnHand()).isEqualTo(12);
+    }
+
+    @Test
+    void testResumeFromLastEventId() throws InterruptedException {
+
+        String beerId = ObjectId.get().toHexString();
+        mongoTemplate.stream("beer", Flux.just(change("delete", beerId, "82B2")));
+
+        List<BeerChangeEvent> events = beerChangeService.changes(null, null, "82B1").collectList().block();
+
+        ChangeStreamOptions options = mongoTemplate.nextOptions("beer");
+        assertThat(options.getResumeToken()).contains(token("82B1"));
+        assertThat(events).extracting(BeerChangeEvent::getOperationType).containsExactly("delete");
+        assertThat(events).extracting(BeerChangeEvent::getResumeToken).containsExactly("82B2");
+    }
+
+    @Test
+    void testFilteredFeedExitEvent() throws InterruptedException {
+
+        String beerId = ObjectId.get().toHexString();
+        mongoTemplate.stream("beer", Flux.just(
+                change("update", beerId, "82C1", beer(beerId, "Pale Ale", 5), new UpdateDescription(List.of(),
+                        new BsonDocument("quantityOnHand", new BsonInt32(5)))),
+                change("update", beerId, "82C2", beer(beerId, "IPA", 5), new UpdateDescription(List.of(),
+                        new BsonDocument("beerStyle", new BsonString("IPA"))))));
+
+        List<BeerChangeEvent> events = beerChangeService.changes("Pale Ale", 10, null).collectList().block();
+
+        assertThat(events).extracting(BeerChangeEvent::getOperationType).containsExactly("update", BeerChangeEvent.EXIT);
+        assertThat(events.get(1).getBeerId()).isEqualTo(beerId);
+        assertThat(events.get(1).getBeer()).isNull();
+
+        // updates that touch a filtered field pass the server-side filter even when they no longer match
+        String filter = mongoTemplate.nextOptions("beer").getFilter().orElseThrow().toString();
+        assertThat(filter).contains("updateDescription.updatedFields.beerStyle",
+                "updateDescription.updatedFields.quantityOnHand");
+    }
+
+    @Test
+    void testEventsForIdsThatAreNotObjectIds() {
+
+        String beerId = ObjectId.get().toHexString();
+        mongoTemplate.stream("beer", Flux.just(
+                changeOfKey("delete", new BsonString("client-supplied"), "82D1"),
+                changeOfKey("delete", new BsonInt32(42), "82D2"),
+                change("delete", beerId, "82D3")));
+
+        List<BeerChangeEvent> events = beerChangeService.changes(null, null, null).collectList().block();
+
+        // a document key no beer can have is skipped rather than ending the shared feed
+        assertThat(events).extracting(BeerChangeEvent::getBeerId).containsExactly("client-supplied", beerId);
+    }
+
+    @Test
+    void testEndedFeedDoesNotRemoveItsReplacement() {
+
+        mongoTemplate.stream("beer", Flux.just(change("delete", ObjectId.get().toHexString(), "82E1")));
+        mongoTemplate.stream("beer", Flux.just(change("delete", ObjectId.get().toHexString(), "82E2")));
+
+        Flux<BeerChangeEvent> ended = beerChangeService.changes(null, null, null);
+        assertThat(ended.collectList().block()).hasSize(1);
+
+        Flux<BeerChangeEvent> replacement = beerChangeService.changes(null, null, null);
+        assertThat(replacement).isNotSameAs(ended);
+
+        // a subscriber still holding the ended feed reconnects it, and it ends again
+        assertThat(ended.collectList().block()).hasSize(1);
+
+        assertThat(beerChangeService.changes(null, null, null)).isSameAs(replacement);
+    }
+
+    private static Document beer(String id, String beerStyle, int quantityOnHand) {
+        return new Document("_id", new ObjectId(id))
+                .append("beerName", "Beer " + id)
+                .append("beerStyle", beerStyle)
+                .append("quantityOnHand", quantityOnHand);
+    }
+}
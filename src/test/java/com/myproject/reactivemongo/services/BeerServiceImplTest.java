@@ -1,22 +1,34 @@
 package com.myproject.reactivemongo.services;
 
+import com.myproject.reactivemongo.cache.BeerCache;
 import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.domain.BeerStyleSummary;
 import com.myproject.reactivemongo.mappers.BeerMapper;
 import com.myproject.reactivemongo.mappers.BeerMapperImpl;
 import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.BulkItemResult;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Query;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.StreamSupport;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 
 @SpringBootTest
@@ -28,6 +40,15 @@ public class  BeerServiceImplTest {
     @Autowired
     BeerMapper beerMapper;
 
+    @Autowired
+    BeerCache beerCache;
+
+    @Autowired
+    BeerStyleSummaryService styleSummaryService;
+
+    @Autowired
+    ReactiveMongoTemplate mongoTemplate;
+
     BeerDTO beerDTO;
 
     @BeforeEach
@@ -117,6 +138,20 @@ public class  BeerServiceImplTest {
         assertThat(fetchedDto.getId()).isEqualTo(savedBeerDto.getId());
     }
 
+    @Test
+    @DisplayName("Test Patch Returns Updated Document")
+    void testPatchBeer() {
+
+        BeerDTO savedBeerDto = getSavedBeerDto();
+        BeerDTO patch = BeerDTO.builder().quantityOnHand(99).build();
+
+        BeerDTO patchedDto = beerService.patchBeer(savedBeerDto.getId(), patch).block();
+
+        assertThat(patchedDto.getQuantityOnHand()).isEqualTo(99);
+        assertThat(patchedDto.getBeerName()).isEqualTo(savedBeerDto.getBeerName());
+        assertThat(patchedDto.getLastModifiedDate()).isAfterOrEqualTo(savedBeerDto.getLastModifiedDate());
+    }
+
     @Test
     @DisplayName("Test Update Using Reactive Streams")
     void testUpdateStreaming() {
@@ -136,6 +171,174 @@ public class  BeerServiceImplTest {
         assertThat(atomicDto.get().getBeerName()).isEqualTo(newName);
     }
 
+    @Test
+    @DisplayName("Test Bulk Upsert Inserts Then Updates By Upc")
+    void testUpsertBeers() {
+
+        BeerDTO bulkDto = getTestBeerDto();
+        bulkDto.setUpc(UUID.randomUUID().toString());
+
+        List<BulkItemResult> created = beerService.upsertBeers(Map.of(0L, bulkDto)).collectList().block();
+
+        assertThat(created).hasSize(1);
+        assertThat(created.get(0).getStatus()).isEqualTo(BulkItemResult.Status.CREATED);
+        assertThat(created.get(0).getId()).isNotNull();
+
+        bulkDto.setBeerName("Bulk Updated");
+        List<BulkItemResult> updated = beerService.upsertBeers(Map.of(7L, bulkDto)).collectList().block();
+
+        assertThat(updated.get(0).getStatus()).isEqualTo(BulkItemResult.Status.UPDATED);
+        assertThat(updated.get(0).getIndex()).isEqualTo(7L);
+        assertThat(beerService.getById(created.get(0).getId()).block().getBeerName()).isEqualTo("Bulk Updated");
+    }
+
+    @Test
+    @DisplayName("Test Get By Id Is Served From Cache Until Updated")
+    void testGetByIdCached() {
+
+        BeerDTO savedDto = getSavedBeerDto();
+
+        beerService.getById(savedDto.getId()).block();
+        long hits = beerCache.stats().hitCount();
+        beerService.getById(savedDto.getId()).block();
+
+        assertThat(beerCache.stats().hitCount()).isEqualTo(hits + 1);
+
+        savedDto.setBeerName("Cache Evicted");
+        beerService.updateBeer(savedDto.getId(), savedDto).block();
+
+        assertThat(beerService.getById(savedDto.getId()).block().getBeerName()).isEqualTo("Cache Evicted");
+    }
+
+    @Test
+    @DisplayName("Test Search Ranks Beer Name Matches Above Style Matches")
+    void testSearchQueryRankedByScore() {
+
+        Query query = BeerServiceImpl.searchQuery("stout", 1, 10);
+        Document textScore = new Document("$meta", "textScore");
+
+        assertThat(query.getQueryObject()).containsEntry("$text", new Document("$search", "stout"));
+        assertThat(query.getFieldsObject()).containsEntry("score", textScore);
+        assertThat(query.getSortObject().entrySet()).first().isEqualTo(Map.entry("score", textScore));
+        assertThat(query.getSkip()).isEqualTo(10);
+        assertThat(query.getLimit()).isEqualTo(10);
+
+        // the score weighs a beer name match three times a style match, which has the default weight
+        IndexDefinition textIndex = StreamSupport.stream(IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                        .resolveIndexFor(Beer.class).spliterator(), false)
+                .filter(index -> index.getIndexKeys().containsValue("text"))
+                .findFirst()
+                .orElseThrow();
+
+        Document weights = textIndex.getIndexOptions().get("weights", Document.class);
+
+        assertThat(textIndex.getIndexKeys()).containsEntry("beerName", "text").containsEntry("beerStyle", "text");
+        assertThat(weights.get("beerName", Number.class).doubleValue()).isEqualTo(3);
+        assertThat(weights).doesNotContainKey("beerStyle");
+    }
+
+    @Test
+    @DisplayName("Test Style Summary Recorded On Every Write")
+    void testStyleSummaryRecordedOnWrites() {
+
+        String paleAle = "SUMMARY_" + UUID.randomUUID();
+        String stout = "SUMMARY_" + UUID.randomUUID();
+
+        BeerDTO first = getTestBeerDto();
+        first.setBeerStyle(paleAle);
+        first = beerService.saveBeer(first).block();
+
+        BeerDTO second = getTestBeerDto();
+        second.setBeerStyle(paleAle);
+        second = beerService.saveBeer(second).block();
+
+        assertSummary(paleAle, 2, 24, "240");
+
+        beerService.patchBeer(first.getId(), BeerDTO.builder().quantityOnHand(2).build()).block();
+        assertSummary(paleAle, 2, 14, "140");
+
+        second.setBeerStyle(stout);
+        BeerDTO updated = beerService.updateBeer(second.getId(), second).block();
+        assertThat(updated.getVersion()).isEqualTo(second.getVersion() + 1);
+        assertSummary(paleAle, 1, 2, "20");
+        assertSummary(stout, 1, 12, "120");
+
+        beerService.deleteBeerById(first.getId()).block();
+        assertThat(summary(paleAle)).isNull();
+
+        BeerDTO bulkDto = getTestBeerDto();
+        bulkDto.setBeerStyle(paleAle);
+        beerService.upsertBeers(Map.of(0L, bulkDto)).blockLast();
+        assertSummary(paleAle, 1, 12, "120");
+
+        bulkDto.setBeerStyle(stout);
+        beerService.upsertBeers(Map.of(0L, bulkDto)).blockLast();
+        assertThat(summary(paleAle)).isNull();
+        assertSummary(stout, 2, 24, "240");
+    }
+
+    @Test
+    @DisplayName("Test Style Summary Drift Corrected Once By Concurrent Reconciliations")
+    void testStyleSummaryReconciled() {
+
+        String beerStyle = "SUMMARY_" + UUID.randomUUID();
+
+        BeerDTO saved = getTestBeerDto();
+        saved.setBeerStyle(beerStyle);
+        saved = beerService.saveBeer(saved).block();
+
+        // the same beer counted twice, as a write made outside the service paths would leave it
+        styleSummaryService.record(null, beerMapper.beerDtoToBeer(saved)).block();
+        assertSummary(beerStyle, 2, 24, "240");
+
+        Long drifted = Mono.zip(styleSummaryService.reconcile(), styleSummaryService.reconcile(), Long::sum).block();
+        assertThat(drifted).isPositive();
+
+        assertSummary(beerStyle, 1, 12, "120");
+    }
+
+    @Test
+    @DisplayName("Test Beers Without Style Summarized Under Unknown Style")
+    void testStyleSummaryOfBeersWithoutStyle() {
+
+        BeerDTO unstyled = getTestBeerDto();
+        unstyled.setBeerStyle(null);
+        beerService.saveBeer(unstyled).block();
+
+        styleSummaryService.reconcile().block();
+        List<String> styles = styleSummaryService.summaries().map(BeerStyleSummary::getBeerStyle).collectList().block();
+
+        // a second run finds nothing to create
+        styleSummaryService.reconcile().block();
+
+        assertThat(styleSummaryService.summaries().map(BeerStyleSummary::getBeerStyle).collectList().block())
+                .isEqualTo(styles)
+                .contains(BeerStyleSummary.UNKNOWN_STYLE)
+                .doesNotContainNull();
+        assertThat(summary(BeerStyleSummary.UNKNOWN_STYLE).getBeerCount())
+                .isEqualTo(beerService.findByBeerStyle(null).count().block());
+    }
+
+    private void assertSummary(String beerStyle, long beerCount, long totalQuantityOnHand, String stockValue) {
+
+        assertThat(summary(beerStyle))
+                .as("summary of %s", beerStyle)
+                .isNotNull()
+                .satisfies(summary -> {
+                    assertThat(summary.getBeerCount()).isEqualTo(beerCount);
+                    assertThat(summary.getTotalQuantityOnHand()).isEqualTo(totalQuantityOnHand);
+                    assertThat(summary.getStockValue()).isEqualByComparingTo(stockValue);
+                });
+    }
+
+    private BeerStyleSummary summary(String beerStyle) {
+
+        return styleSummaryService.summaries()
+                .filter(summary -> beerStyle.equals(summary.getBeerStyle()))
+                .singleOrEmpty()
+                .block();
+    }
+
     @Test
     void testDeleteBeer() {
 
@@ -165,7 +368,7 @@ public class  BeerServiceImplTest {
                 .beerStyle("IPA")
                 .price(BigDecimal.TEN)
                 .quantityOnHand(12)
-                .upc("123456")
+                .upc(UUID.randomUUID().toString())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.myproject.reactivemongo.services;
+
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.myproject.reactivemongo.StubChangeStreamTemplate;
+import com.myproject.reactivemongo.config.InventoryProperties;
+import com.myproject.reactivemongo.domain.BeerStyleSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.myproject.reactivemongo.StubChangeStreamTemplate.change;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class BeerStyleSummaryListenerTest {
+
+    MongoClient client;
+    StubChangeStreamTemplate mongoTemplate;
+    SimpleMeterRegistry meterRegistry;
+    BeerStyleSummaryService styleSummaryService;
+    InventoryProperties properties;
+    List<BeerStyleSummaryListener> listeners = new ArrayList<>();
+
+    String paleAle = "PALE_ALE_" + UUID.randomUUID();
+    String stout = "STOUT_" + UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+
+        properties = new InventoryProperties();
+        properties.getSummaryChangeStream().setMinRetryBackoff(Duration.ofMillis(1));
+        properties.getSummaryChangeStream().setMaxRetryBackoff(Duration.ofMillis(10));
+        properties.getSummaryChangeStream().setBatchWindow(Duration.ofMillis(10));
+
+        client = MongoClients.create();
+        mongoTemplate = new StubChangeStreamTemplate(client);
+        meterRegistry = new SimpleMeterRegistry();
+        styleSummaryService = new BeerStyleSummaryServiceImpl(mongoTemplate, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listeners.forEach(BeerStyleSummaryListener::stop);
+        client.close();
+    }
+
+    @Test
+    void testStylesTouchedByChangeReconciled() throws InterruptedException {
+
+        // the beer moved from pale ale to stout without either summary hearing of it
+        String beerId = ObjectId.get().toHexString();
+        mongoTemplate.insert(beer(beerId, stout, 3), "beer").block();
+        mongoTemplate.insert(new BeerStyleSummary(paleAle, 1, 3, new BigDecimal("4.50"))).block();
+
+        mongoTemplate.stream("beer", Flux.just(
+                        change("update", beerId, "8201", beer(beerId, stout, 3), beer(beerId, paleAle, 3), styleUpdated(stout)))
+                .concatWith(Flux.never()));
+
+        startListener();
+
+        ChangeStreamOptions options = mongoTemplate.nextOptions("beer");
+        assertThat(options.getFullDocumentLookup()).contains(FullDocument.UPDATE_LOOKUP);
+        assertThat(options.getFullDocumentBeforeChangeLookup()).contains(FullDocumentBeforeChange.WHEN_AVAILABLE);
+
+        await().untilAsserted(() -> {
+            assertTotals(paleAle, 0, 0, "0");
+            assertTotals(stout, 1, 3, "4.50");
+        });
+    }
+
+    @Test
+    void testChangeWithoutPreImageLeftToReconciler() throws InterruptedException {
+
+        String beerId = ObjectId.get().toHexString();
+        mongoTemplate.insert(beer(beerId, stout, 3), "beer").block();
+        mongoTemplate.insert(new BeerStyleSummary(paleAle, 1, 3, new BigDecimal("4.50"))).block();
+
+        mongoTemplate.stream("beer", Flux.just(
+                        change("update", beerId, "8201", beer(beerId, stout, 3), null, styleUpdated(stout)))
+                .concatWith(Flux.never()));
+
+        startListener();
+        mongoTemplate.nextOptions("beer");
+
+        await().untilAsserted(() -> assertTotals(stout, 1, 3, "4.50"));
+        assertThat(meterRegistry.counter("inventory.style.summary.unresolved").count()).isEqualTo(1);
+        assertTotals(paleAle, 1, 3, "4.50");
+    }
+
+    private void startListener() {
+
+        BeerStyleSummaryListener listener = new BeerStyleSummaryListener(mongoTemplate, styleSummaryService, properties,
+                meterRegistry);
+        listeners.add(listener);
+        listener.start();
+    }
+
+    private void assertTotals(String beerStyle, long beerCount, long totalQuantityOnHand, String stockValue) {
+
+        BeerStyleSummary summary = mongoTemplate.findById(beerStyle, BeerStyleSummary.class).block();
+
+        assertThat(summary).isNotNull();
+        assertThat(summary.getBeerCount()).isEqualTo(beerCount);
+        assertThat(summary.getTotalQuantityOnHand()).isEqualTo(totalQuantityOnHand);
+        assertThat(summary.getStockValue()).isEqualByComparingTo(stockValue);
+    }
+
+    private static UpdateDescription styleUpdated(String beerStyle) {
+        return new UpdateDescription(List.of(), new BsonDocument("beerStyle", new BsonString(beerStyle)));
+    }
+
+    private static Document beer(String id, String beerStyle, int quantityOnHand) {
+        return new Document("_id", new ObjectId(id))
+                .append("beerStyle", beerStyle)
+                .append("quantityOnHand", quantityOnHand)
+                .append("price", new Decimal128(new BigDecimal("1.50")));
+    }
+}
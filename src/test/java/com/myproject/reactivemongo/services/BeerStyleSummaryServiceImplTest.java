@@ -0,0 +1,97 @@
+package com.myproject.reactivemongo.services;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.myproject.reactivemongo.config.InventoryProperties;
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.domain.BeerStyleSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeerStyleSummaryServiceImplTest {
+
+    MongoClient client;
+    ReactiveMongoTemplate mongoTemplate;
+    BeerStyleSummaryService styleSummaryService;
+
+    String beerStyle = "SUMMARY_" + UUID.randomUUID();
+
+    /**
+     * Recorded write of a beer, made as soon as the reconciliation has aggregated the beer collection.
+     */
+    Runnable afterAggregation = () -> { };
+
+    @BeforeEach
+    void setUp() {
+
+        client = MongoClients.create();
+        mongoTemplate = new ReactiveMongoTemplate(client, "test") {
+
+            @Override
+            public <O> Flux<O> aggregate(TypedAggregation<?> aggregation, Class<O> outputType) {
+                return super.aggregate(aggregation, outputType)
+                        .concatWith(Mono.fromRunnable(() -> afterAggregation.run()));
+            }
+
+            // gives a stored summary read started alongside the aggregation time to see the write
+            @Override
+            public <T> Flux<T> find(Query query, Class<T> entityClass) {
+                return Mono.delay(Duration.ofMillis(200)).thenMany(super.find(query, entityClass));
+            }
+        };
+        styleSummaryService = new BeerStyleSummaryServiceImpl(mongoTemplate, new InventoryProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void testWriteAfterAggregationNotTakenForDrift() {
+
+        write(2);
+
+        afterAggregation = () -> {
+            afterAggregation = () -> { };
+            write(3);
+        };
+
+        styleSummaryService.reconcile(List.of(beerStyle)).block();
+
+        BeerStyleSummary summary = mongoTemplate.findById(beerStyle, BeerStyleSummary.class).block();
+
+        assertThat(summary).isNotNull();
+        assertThat(summary.getBeerCount()).isEqualTo(2);
+        assertThat(summary.getTotalQuantityOnHand()).isEqualTo(5);
+        assertThat(summary.getStockValue()).isEqualByComparingTo("7.50");
+    }
+
+    private void write(int quantityOnHand) {
+
+        Beer beer = mongoTemplate.insert(Beer.builder()
+                .beerName("Summary")
+                .beerStyle(beerStyle)
+                .upc(UUID.randomUUID().toString())
+                .quantityOnHand(quantityOnHand)
+                .price(new BigDecimal("1.50"))
+                .build()).block();
+
+        styleSummaryService.record(null, beer).block();
+    }
+}
@@ -0,0 +1,118 @@
+package com.myproject.reactivemongo.web.compression;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.myproject.reactivemongo.config.ResponseCompressionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressingResponseTest {
+
+    private static final int GROUPS = 50;
+
+    ResponseCompressionProperties properties = new ResponseCompressionProperties();
+    CompressionMetrics metrics = new CompressionMetrics(new SimpleMeterRegistry());
+
+    @ParameterizedTest
+    @EnumSource(value = ContentEncoding.class, names = {"GZIP", "ZSTD"})
+    void testStreamNdjson(ContentEncoding encoding) throws IOException {
+
+        List<String> lines = IntStream.range(0, GROUPS).mapToObj(i -> "{\"beerName\":\"Beer " + i + "\"}\n").toList();
+
+        assertThat(decode(encoding, stream(encoding, MediaType.APPLICATION_NDJSON, lines)))
+                .isEqualTo(String.join("", lines));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ContentEncoding.class, names = {"GZIP", "ZSTD"})
+    void testStreamServerSentEvents(ContentEncoding encoding) throws IOException {
+
+        List<MediaType> mimeTypes = new ArrayList<>(properties.getMimeTypes());
+        mimeTypes.add(MediaType.TEXT_EVENT_STREAM);
+        properties.setMimeTypes(mimeTypes);
+
+        List<String> events = IntStream.range(0, GROUPS).mapToObj(i -> "id:" + i + "\ndata:{\"id\":" + i + "}\n\n").toList();
+
+        assertThat(decode(encoding, stream(encoding, MediaType.TEXT_EVENT_STREAM, events)))
+                .isEqualTo(String.join("", events));
+    }
+
+    @Test
+    void testStreamNotCompressedWithoutEncoding() {
+
+        MockServerHttpResponse delegate = new MockServerHttpResponse();
+        delegate.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+
+        new CompressingResponse(delegate, null, properties, metrics)
+                .writeAndFlushWith(Flux.just(Flux.just(buffer("{}\n")), Flux.just(buffer("{}\n"))))
+                .block();
+
+        assertThat(delegate.getBodyAsString().block()).isEqualTo("{}\n{}\n");
+    }
+
+    /**
+     * Writes one group per element to a response that requests every group before writing the
+     * first, the extreme case of the server requesting the next element before the previous one is
+     * on the wire.
+     */
+    private byte[] stream(ContentEncoding encoding, MediaType contentType, List<String> elements) {
+
+        MockServerHttpResponse delegate = new MockServerHttpResponse();
+        delegate.getHeaders().setContentType(contentType);
+
+        ServerHttpResponse requestingAhead = new ServerHttpResponseDecorator(delegate) {
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return Flux.from(body).collectList()
+                        .flatMap(groups -> super.writeWith(Flux.fromIterable(groups).concatMap(Flux::from)));
+            }
+        };
+
+        new CompressingResponse(requestingAhead, encoding, properties, metrics)
+                .writeAndFlushWith(Flux.fromIterable(elements).map(element -> Flux.just(buffer(element))))
+                .block();
+
+        assertThat(delegate.getHeaders().getFirst("Content-Encoding")).isEqualTo(encoding.token());
+
+        DataBuffer body = DataBufferUtils.join(delegate.getBody()).block();
+        byte[] bytes = new byte[body.readableByteCount()];
+        body.read(bytes);
+        DataBufferUtils.release(body);
+        return bytes;
+    }
+
+    private static String decode(ContentEncoding encoding, byte[] body) throws IOException {
+
+        ByteArrayInputStream bytes = new ByteArrayInputStream(body);
+
+        try (InputStream in = encoding == ContentEncoding.GZIP ? new GZIPInputStream(bytes) : new ZstdInputStream(bytes)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static DataBuffer buffer(String value) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,7 +1,12 @@
 package com.myproject.reactivemongo.web.fn;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import com.myproject.reactivemongo.codec.BinaryMediaTypes;
 import com.myproject.reactivemongo.domain.Beer;
 import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.security.Scopes;
+import com.myproject.reactivemongo.services.BeerQuerySpecParser;
 import com.myproject.reactivemongo.services.BeerServiceImplTest;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
@@ -10,29 +15,54 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
+import static com.myproject.reactivemongo.security.ScopedLogin.withScopes;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
-import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockOAuth2Login;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @SpringBootTest
 @AutoConfigureWebTestClient
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class BeerEndpointTest {
 
+    private static final int COMPRESSION_TEST_BEERS = 12;
+
     @Autowired
     WebTestClient webTestClient;
 
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ReactiveMongoTemplate mongoTemplate;
+
     @Test
     @Order(1)
     void testListBeers() {
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .get().uri(BeerRouterConfig.BEER_PATH)
                 .exchange()
                 .expectStatus().isOk()
@@ -40,6 +70,53 @@ class BeerEndpointTest {
                 .expectBody().jsonPath("$.size()").value(greaterThan(1));
     }
 
+    @Test
+    @Order(1)
+    void testListBeersWithoutScope() {
+
+        webTestClient.mutateWith(withScopes())
+                .get().uri(BeerRouterConfig.BEER_PATH)
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @Order(1)
+    void testListBeersUnauthenticated() {
+
+        webTestClient.get().uri(BeerRouterConfig.BEER_PATH)
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @Order(1)
+    void testStreamBeersNdjson() {
+
+        List<BeerDTO> beers = webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(BeerRouterConfig.BEER_PATH)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(BeerDTO.class)
+                .getResponseBody().collectList().block();
+
+        assertThat(beers).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    @Order(1)
+    void testStreamBeersServerSentEvents() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(BeerRouterConfig.BEER_PATH)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM);
+    }
+
     @Test
     @Order(1)
     void testListBeersByStyle() {
@@ -48,13 +125,13 @@ class BeerEndpointTest {
         BeerDTO testDto = getSavedTestBeer();
         testDto.setBeerStyle(BEER_STYLE);
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .post().uri(BeerRouterConfig.BEER_PATH)
                 .body(Mono.just(testDto), BeerDTO.class)
                 .header("Content-type", "application/json")
                 .exchange();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .get().uri(UriComponentsBuilder
                         .fromPath(BeerRouterConfig.BEER_PATH)
                         .queryParam("beerStyle", BEER_STYLE).build().toUri())
@@ -64,12 +141,372 @@ class BeerEndpointTest {
                 .expectBody().jsonPath("$.size()").value(equalTo(1));
     }
 
+    @Test
+    @Order(1)
+    void testListBeersPaged() {
+
+        FluxExchangeResult<BeerDTO> firstPage = webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(PageCursor.LIMIT_PARAM, 1).build().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(PageCursor.NEXT_CURSOR_HEADER)
+                .returnResult(BeerDTO.class);
+
+        String cursor = firstPage.getResponseHeaders().getFirst(PageCursor.NEXT_CURSOR_HEADER);
+        BeerDTO firstBeer = firstPage.getResponseBody().blockFirst();
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(PageCursor.LIMIT_PARAM, 1)
+                        .queryParam(PageCursor.CURSOR_PARAM, cursor).build().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").value(equalTo(1))
+                .jsonPath("$[0].id").value(not(equalTo(firstBeer.getId())));
+    }
+
+    @Test
+    @Order(1)
+    void testListBeersInvalidCursor() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(PageCursor.CURSOR_PARAM, "not-a-cursor").build().toUri())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(1)
+    void testGetByIdCbor() {
+
+        BeerDTO beerDTO = getSavedTestBeer();
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(BeerRouterConfig.BEER_PATH_ID, beerDTO.getId())
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+                .expectBody(BeerDTO.class)
+                .value(dto -> {
+                    assertThat(dto.getId()).isEqualTo(beerDTO.getId());
+                    assertThat(dto.getPrice()).isEqualByComparingTo(beerDTO.getPrice());
+                    assertThat(dto.getCreatedDate()).isEqualTo(beerDTO.getCreatedDate());
+                });
+    }
+
+    @Test
+    @Order(1)
+    void testListBeersSmile() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(PageCursor.LIMIT_PARAM, 2).build().toUri())
+                .accept(BinaryMediaTypes.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(BinaryMediaTypes.APPLICATION_SMILE)
+                .expectBodyList(BeerDTO.class).hasSize(2);
+    }
+
+    @Test
+    @Order(1)
+    void testListAndCreateBeersProtobuf() {
+
+        final String BEER_NAME = "Protobuf " + UUID.randomUUID();
+
+        for (int i = 0; i < 2; i++) {
+            BeerDTO beerDTO = BeerServiceImplTest.getTestBeerDto();
+            beerDTO.setBeerName(BEER_NAME);
+            beerDTO.setPrice(new BigDecimal("4.25"));
+
+            webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                    .post().uri(BeerRouterConfig.BEER_PATH)
+                    .contentType(BinaryMediaTypes.APPLICATION_PROTOBUF)
+                    .accept(BinaryMediaTypes.APPLICATION_PROTOBUF)
+                    .body(Mono.just(beerDTO), BeerDTO.class)
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(BeerQuerySpecParser.NAME_PREFIX, BEER_NAME)
+                        .queryParam(PageCursor.LIMIT_PARAM, 2).build().toUri())
+                .accept(BinaryMediaTypes.APPLICATION_PROTOBUF)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(BinaryMediaTypes.APPLICATION_PROTOBUF)
+                .expectBodyList(BeerDTO.class)
+                .value(beers -> assertThat(beers).hasSize(2)
+                        .allSatisfy(beer -> {
+                            assertThat(beer.getBeerName()).isEqualTo(BEER_NAME);
+                            assertThat(beer.getPrice()).isEqualByComparingTo("4.25");
+                        }));
+    }
+
+    @Test
+    @Order(1)
+    void testListBeersFilteredAndSorted() {
+
+        final String BEER_STYLE = "RANGE_TEST";
+
+        for (String price : List.of("5.00", "15.00", "25.00")) {
+            Beer testBeer = BeerServiceImplTest.getTestBeer();
+            testBeer.setBeerStyle(BEER_STYLE);
+            testBeer.setBeerName("Range " + price);
+            testBeer.setPrice(new BigDecimal(price));
+
+            webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                    .post().uri(BeerRouterConfig.BEER_PATH)
+                    .body(Mono.just(testBeer), Beer.class)
+                    .header("Content-type", "application/json")
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(BeerQuerySpecParser.BEER_STYLE, BEER_STYLE)
+                        .queryParam(BeerQuerySpecParser.PRICE_MIN, "10")
+                        .queryParam(BeerQuerySpecParser.NAME_PREFIX, "range")
+                        .queryParam(BeerQuerySpecParser.SORT, "-price")
+                        .queryParam(PageCursor.LIMIT_PARAM, 5).build().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(PageCursor.NEXT_CURSOR_HEADER)
+                .expectBody()
+                .jsonPath("$.size()").value(equalTo(2))
+                .jsonPath("$[0].beerName").value(equalTo("Range 25.00"))
+                .jsonPath("$[1].beerName").value(equalTo("Range 15.00"));
+    }
+
+    @Test
+    @Order(1)
+    void testSearchBeersByPrefix() {
+
+        Beer testBeer = BeerServiceImplTest.getTestBeer();
+        testBeer.setBeerName("Quasar Porter");
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .post().uri(BeerRouterConfig.BEER_PATH)
+                .body(Mono.just(testBeer), Beer.class)
+                .header("Content-type", "application/json")
+                .exchange()
+                .expectStatus().isCreated();
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH_SEARCH)
+                        .queryParam(BeerHandler.SEARCH_PARAM, "QUAS")
+                        .queryParam(BeerHandler.PREFIX_PARAM, true).build().toUri())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(BeerDTO.class)
+                .value(beers -> assertThat(beers).extracting(BeerDTO::getBeerName).containsExactly("Quasar Porter"));
+    }
+
+    @Test
+    @Order(1)
+    void testSearchBeersRankedByScore() {
+
+        assumeTrue(supportsTextSearch(), "$text is not supported by the test server");
+
+        String term = "Zq" + UUID.randomUUID().toString().replace("-", "");
+
+        // inserted first so a result in natural order would list the style match first
+        createBeer("Harvest Session", term);
+        createBeer(term + " Stout", "Stout");
+        createBeer("Unrelated Lager", "Lager");
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH_SEARCH)
+                        .queryParam(BeerHandler.SEARCH_PARAM, term).build().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BeerDTO.class)
+                .value(beers -> assertThat(beers).extracting(BeerDTO::getBeerName)
+                        .containsExactly(term + " Stout", "Harvest Session"));
+    }
+
+    @Test
+    @Order(1)
+    void testSearchBeersMissingQuery() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(BeerRouterConfig.BEER_PATH_SEARCH)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(1)
+    void testListBeersUnindexedSort() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(BeerQuerySpecParser.SORT, "createdDate").build().toUri())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(1)
+    void testListBeersGzip() throws IOException {
+
+        String beerStyle = saveCompressionTestBeers();
+
+        byte[] body = webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(BeerQuerySpecParser.BEER_STYLE, beerStyle).build().toUri())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate;q=0.5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(objectMapper.readValue(in, BeerDTO[].class)).hasSize(COMPRESSION_TEST_BEERS);
+        }
+    }
+
+    @Test
+    @Order(1)
+    void testStreamBeersZstd() throws IOException {
+
+        String beerStyle = saveCompressionTestBeers();
+
+        byte[] body = webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(BeerQuerySpecParser.BEER_STYLE, beerStyle).build().toUri())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, zstd")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "zstd")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        try (InputStream in = new ZstdInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8).lines())
+                    .hasSize(COMPRESSION_TEST_BEERS)
+                    .allSatisfy(line -> assertThat(objectMapper.readValue(line, BeerDTO.class).getBeerStyle())
+                            .isEqualTo(beerStyle));
+        }
+    }
+
+    @Test
+    @Order(1)
+    void testGetByIdBelowCompressionThreshold() {
+
+        BeerDTO beerDTO = getSavedTestBeer();
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(BeerRouterConfig.BEER_PATH_ID, beerDTO.getId())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectBody(BeerDTO.class);
+    }
+
+    private String saveCompressionTestBeers() {
+
+        String beerStyle = "COMPRESSION_" + UUID.randomUUID();
+
+        for (int i = 0; i < COMPRESSION_TEST_BEERS; i++) {
+            Beer testBeer = BeerServiceImplTest.getTestBeer();
+            testBeer.setBeerStyle(beerStyle);
+
+            webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                    .post().uri(BeerRouterConfig.BEER_PATH)
+                    .body(Mono.just(testBeer), Beer.class)
+                    .header("Content-type", "application/json")
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+        return beerStyle;
+    }
+
+    @Test
+    @Order(1)
+    void testListBeersProjected() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(FieldSelection.FIELDS_PARAM, "beerName")
+                        .queryParam(PageCursor.LIMIT_PARAM, 1).build().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(PageCursor.NEXT_CURSOR_HEADER)
+                .expectBody()
+                .jsonPath("$.size()").value(equalTo(1))
+                .jsonPath("$[0].id").exists()
+                .jsonPath("$[0].beerName").exists()
+                .jsonPath("$[0].price").doesNotExist()
+                .jsonPath("$[0].upc").doesNotExist();
+    }
+
+    @Test
+    @Order(1)
+    void testListBeersUnknownField() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH)
+                        .queryParam(FieldSelection.FIELDS_PARAM, "beerName,secret").build().toUri())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(1)
+    void testBeerChangesInvalidThreshold() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH_CHANGES)
+                        .queryParam("quantityOnHandBelow", "many").build().toUri())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(1)
+    void testBeerChangesInvalidLastEventId() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(BeerRouterConfig.BEER_PATH_CHANGES)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", "not-a-token")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON);
+    }
+
     @Test
     @Order(2)
     void testGetById() {
         BeerDTO beerDTO = getSavedTestBeer();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .get().uri(BeerRouterConfig.BEER_PATH_ID, beerDTO.getId())
                 .exchange()
                 .expectStatus().isOk()
@@ -77,10 +514,49 @@ class BeerEndpointTest {
                 .expectBody(BeerDTO.class);
     }
 
+    @Test
+    @Order(2)
+    void testGetByIdNotModified() {
+        BeerDTO beerDTO = getSavedTestBeer();
+
+        String eTag = webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(BeerRouterConfig.BEER_PATH_ID, beerDTO.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(BeerDTO.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(BeerRouterConfig.BEER_PATH_ID, beerDTO.getId())
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @Order(2)
+    void testGetByIdProjected() {
+        BeerDTO beerDTO = getSavedTestBeer();
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(BeerRouterConfig.BEER_PATH_ID)
+                        .queryParam(FieldSelection.FIELDS_PARAM, "beerStyle,quantityOnHand")
+                        .build(beerDTO.getId()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").value(equalTo(beerDTO.getId()))
+                .jsonPath("$.beerStyle").value(equalTo(beerDTO.getBeerStyle()))
+                .jsonPath("$.quantityOnHand").value(equalTo(beerDTO.getQuantityOnHand()))
+                .jsonPath("$.beerName").doesNotExist();
+    }
+
     @Test
     @Order(3)
     void testGetByIdNotFound() {
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .get().uri(BeerRouterConfig.BEER_PATH_ID, 999)
                 .exchange()
                 .expectStatus().isNotFound();
@@ -92,7 +568,7 @@ class BeerEndpointTest {
 
         Beer testBeer = BeerServiceImplTest.getTestBeer();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .post().uri(BeerRouterConfig.BEER_PATH)
                 .body(Mono.just(testBeer), BeerDTO.class)
                 .header("Content-type", "application/json")
@@ -101,6 +577,51 @@ class BeerEndpointTest {
                 .expectHeader().exists("location");
     }
 
+    @Test
+    @Order(4)
+    void testCreateBeerReadOnlyScope() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ))
+                .post().uri(BeerRouterConfig.BEER_PATH)
+                .body(Mono.just(BeerServiceImplTest.getTestBeer()), BeerDTO.class)
+                .header("Content-type", "application/json")
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @Order(4)
+    void testBulkUpsertBeers() {
+
+        String upc = UUID.randomUUID().toString();
+        Beer validBeer = BeerServiceImplTest.getTestBeer();
+        validBeer.setUpc(upc);
+        Beer invalidBeer = BeerServiceImplTest.getTestBeer();
+        invalidBeer.setBeerName("");
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .post().uri(BeerRouterConfig.BEER_PATH_BULK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(validBeer, invalidBeer))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").value(equalTo(2))
+                .jsonPath("$[?(@.index == 0)].status").isEqualTo("CREATED")
+                .jsonPath("$[?(@.index == 1)].status").isEqualTo("INVALID");
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .post().uri(BeerRouterConfig.BEER_PATH_BULK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(Flux.just(validBeer), Beer.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("UPDATED");
+    }
+
     @Test
     @Order(5)
     void testCreateBeerBadData() {
@@ -108,12 +629,33 @@ class BeerEndpointTest {
         Beer testBeer = BeerServiceImplTest.getTestBeer();
         testBeer.setBeerName("");
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .post().uri(BeerRouterConfig.BEER_PATH)
                 .body(Mono.just(testBeer), BeerDTO.class)
                 .header("Content-type", "application/json")
                 .exchange()
-                .expectStatus().isBadRequest();
+                .expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.instance").isEqualTo(BeerRouterConfig.BEER_PATH)
+                .jsonPath("$.errors[0].field").isEqualTo("beerName");
+    }
+
+    @Test
+    @Order(5)
+    void testPatchBeerBadData() {
+
+        BeerDTO beerDTO = getSavedTestBeer();
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .patch().uri(BeerRouterConfig.BEER_PATH_ID, beerDTO.getId())
+                .body(Mono.just(BeerDTO.builder().beerStyle("X").build()), BeerDTO.class)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.length()").isEqualTo(1)
+                .jsonPath("$.errors[0].field").isEqualTo("beerStyle");
     }
 
     @Test
@@ -123,7 +665,7 @@ class BeerEndpointTest {
         BeerDTO beerDTO = getSavedTestBeer();
         BeerDTO testBeer = BeerDTO.builder().beerName("Papieżowe").build();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .patch()
                 .uri(BeerRouterConfig.BEER_PATH_ID, beerDTO.getId())
                 .body(Mono.just(testBeer), BeerDTO.class)
@@ -135,7 +677,7 @@ class BeerEndpointTest {
     @Order(7)
     void testPatchIdNotFound() {
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .patch().uri(BeerRouterConfig.BEER_PATH_ID, 999)
                 .body(Mono.just(BeerServiceImplTest.getTestBeer()), BeerDTO.class)
                 .exchange()
@@ -148,7 +690,7 @@ class BeerEndpointTest {
 
         BeerDTO beerDTO = getSavedTestBeer();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .delete().uri(BeerRouterConfig.BEER_PATH_ID, beerDTO.getId())
                 .exchange()
                 .expectStatus().isNoContent();
@@ -158,7 +700,7 @@ class BeerEndpointTest {
     @Order(9)
     void testDeleteIdNotFound() {
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .delete().uri(BeerRouterConfig.BEER_PATH_ID, 999)
                 .exchange()
                 .expectStatus().isNotFound();
@@ -171,7 +713,7 @@ class BeerEndpointTest {
         BeerDTO testBeer = getSavedTestBeer();
         testBeer.setBeerName("");
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .put().uri(BeerRouterConfig.BEER_PATH_ID, testBeer.getId())
                 .body(Mono.just(testBeer), BeerDTO.class)
                 .exchange()
@@ -182,20 +724,43 @@ class BeerEndpointTest {
     @Order(11)
     void testUpdateBeerIdNotFound() {
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .put().uri(BeerRouterConfig.BEER_PATH_ID, 999)
                 .body(Mono.just(BeerServiceImplTest.getTestBeer()), BeerDTO.class)
                 .exchange()
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    @Order(11)
+    void testUpdateBeerIfMatch() {
+
+        BeerDTO testBeer = getSavedTestBeer();
+        String eTag = "\"" + testBeer.getVersion() + "\"";
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .put().uri(BeerRouterConfig.BEER_PATH_ID, testBeer.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + (testBeer.getVersion() + 1) + "\"")
+                .body(Mono.just(testBeer), BeerDTO.class)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .put().uri(BeerRouterConfig.BEER_PATH_ID, testBeer.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .body(Mono.just(testBeer), BeerDTO.class)
+                .exchange()
+                .expectStatus().isNoContent()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + (testBeer.getVersion() + 1) + "\"");
+    }
+
     @Test
     @Order(12)
     void testUpdateBeer() {
 
         BeerDTO testBeer = getSavedTestBeer();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .put().uri(BeerRouterConfig.BEER_PATH_ID, testBeer.getId())
                 .body(Mono.just(testBeer), BeerDTO.class)
                 .exchange()
@@ -204,7 +769,7 @@ class BeerEndpointTest {
 
     public BeerDTO getSavedTestBeer() {
 
-        FluxExchangeResult<BeerDTO> beerDTOFluxExchangeResult = webTestClient.mutateWith(mockOAuth2Login())
+        FluxExchangeResult<BeerDTO> beerDTOFluxExchangeResult = webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                 .post().uri(BeerRouterConfig.BEER_PATH)
                 .body(Mono.just(BeerServiceImplTest.getTestBeer()), BeerDTO.class)
                 .header("Content-Type", "application/json")
@@ -213,8 +778,30 @@ class BeerEndpointTest {
 
         List<String> location = beerDTOFluxExchangeResult.getResponseHeaders().get("Location");
 
-        return webTestClient.mutateWith(mockOAuth2Login())
+        return webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
                   .get().uri(BeerRouterConfig.BEER_PATH)
                 .exchange().returnResult(BeerDTO.class).getResponseBody().blockFirst();
     }
-}
\ No newline at end of file
+
+    private void createBeer(String beerName, String beerStyle) {
+
+        Beer beer = BeerServiceImplTest.getTestBeer();
+        beer.setBeerName(beerName);
+        beer.setBeerStyle(beerStyle);
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .post().uri(BeerRouterConfig.BEER_PATH)
+                .body(Mono.just(beer), Beer.class)
+                .header("Content-type", "application/json")
+                .exchange()
+                .expectStatus().isCreated();
+    }
+
+    private boolean supportsTextSearch() {
+
+        return mongoTemplate.find(TextQuery.queryText(TextCriteria.forDefaultLanguage().matching("probe")).limit(1), Beer.class)
+                .then(Mono.just(true))
+                .onErrorReturn(false)
+                .block();
+    }
+}
@@ -2,6 +2,7 @@ package com.myproject.reactivemongo.web.fn;
 
 import com.myproject.reactivemongo.domain.Customer;
 import com.myproject.reactivemongo.model.CustomerDTO;
+import com.myproject.reactivemongo.security.Scopes;
 import com.myproject.reactivemongo.services.CustomerServiceImplTest;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
@@ -10,6 +11,9 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -17,9 +21,11 @@ import reactor.core.publisher.Mono;
 
 import java.util.List;
 
+import static com.myproject.reactivemongo.security.ScopedLogin.withScopes;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
-import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockOAuth2Login;
+import static org.hamcrest.Matchers.not;
 
 @SpringBootTest
 @AutoConfigureWebTestClient
@@ -33,7 +39,7 @@ public class CustomerEndpointTest {
     @Order(1)
     void testListCustomers() {
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .get().uri(CustomerRouterConfig.CUSTOMER_PATH)
                 .exchange()
                 .expectStatus().isOk()
@@ -41,6 +47,50 @@ public class CustomerEndpointTest {
                 .expectBody().jsonPath("$.size()").value(greaterThan(1));
     }
 
+    @Test
+    @Order(1)
+    void testListCustomersPaged() {
+
+        FluxExchangeResult<CustomerDTO> firstPage = webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(CustomerRouterConfig.CUSTOMER_PATH)
+                        .queryParam(PageCursor.LIMIT_PARAM, 1).build().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(PageCursor.NEXT_CURSOR_HEADER)
+                .returnResult(CustomerDTO.class);
+
+        String cursor = firstPage.getResponseHeaders().getFirst(PageCursor.NEXT_CURSOR_HEADER);
+        CustomerDTO firstCustomer = firstPage.getResponseBody().blockFirst();
+
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(CustomerRouterConfig.CUSTOMER_PATH)
+                        .queryParam(PageCursor.LIMIT_PARAM, 1)
+                        .queryParam(PageCursor.CURSOR_PARAM, cursor).build().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").value(equalTo(1))
+                .jsonPath("$[0].id").value(not(equalTo(firstCustomer.getId())));
+    }
+
+    @Test
+    @Order(1)
+    void testStreamCustomersNdjson() {
+
+        List<CustomerDTO> customers = webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
+                .get().uri(CustomerRouterConfig.CUSTOMER_PATH)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(CustomerDTO.class)
+                .getResponseBody().collectList().block();
+
+        assertThat(customers).hasSizeGreaterThan(1);
+    }
+
     @Test
     @Order(2)
     void testGetCustomerByName() {
@@ -49,12 +99,12 @@ public class CustomerEndpointTest {
         CustomerDTO testDto = getSavedTestCustomer();
         testDto.setCustomerName(CUSTOMER_NAME);
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .put().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, testDto.getId())
                 .body(Mono.just(testDto), CustomerDTO.class)
                 .exchange();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                  .get().uri(UriComponentsBuilder
                 .fromPath(CustomerRouterConfig.CUSTOMER_PATH)
                 .queryParam("customerName", CUSTOMER_NAME).build().toUri())
@@ -70,18 +120,37 @@ public class CustomerEndpointTest {
 
         CustomerDTO testDto = getSavedTestCustomer();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .get().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, testDto.getId())
                 .exchange()
                 .expectStatus().isOk()
                 .expectBody(CustomerDTO.class);
     }
 
+    @Test
+    @Order(3)
+    void testGetCustomerByIdProjected() {
+
+        CustomerDTO testDto = getSavedTestCustomer();
+
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(CustomerRouterConfig.CUSTOMER_PATH_ID)
+                        .queryParam(FieldSelection.FIELDS_PARAM, "customerName")
+                        .build(testDto.getId()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").value(equalTo(testDto.getId()))
+                .jsonPath("$.customerName").exists()
+                .jsonPath("$.createdDate").doesNotExist();
+    }
+
     @Test
     @Order(4)
     void testGetCustomerByIdNotFound() {
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .get().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, 999)
                 .exchange()
                 .expectStatus().isNotFound()
@@ -94,7 +163,7 @@ public class CustomerEndpointTest {
 
         Customer testCustomer = CustomerServiceImplTest.getTestCustomer();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .post().uri(CustomerRouterConfig.CUSTOMER_PATH)
                 .body(Mono.just(testCustomer), CustomerDTO.class)
                 .header("Content-type", "application/json")
@@ -110,7 +179,7 @@ public class CustomerEndpointTest {
         Customer testCustomer = CustomerServiceImplTest.getTestCustomer();
         testCustomer.setCustomerName("");
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .post().uri(CustomerRouterConfig.CUSTOMER_PATH)
                 .body(Mono.just(testCustomer), CustomerDTO.class)
                 .header("Content-type", "application/json")
@@ -126,7 +195,7 @@ public class CustomerEndpointTest {
         CustomerDTO testCustomer = getSavedTestCustomer();
         testCustomer.setCustomerName(NEW_NAME);
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .put().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, testCustomer.getId())
                 .body(Mono.just(testCustomer), CustomerDTO.class)
                 .exchange()
@@ -139,7 +208,7 @@ public class CustomerEndpointTest {
 
         Customer testCustomer = CustomerServiceImplTest.getTestCustomer();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .put().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, 999)
                 .body(Mono.just(testCustomer), CustomerDTO.class)
                 .exchange()
@@ -153,7 +222,7 @@ public class CustomerEndpointTest {
         CustomerDTO testCustomer = getSavedTestCustomer();
         testCustomer.setCustomerName("");
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .put().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, testCustomer.getId())
                 .body(Mono.just(testCustomer), CustomerDTO.class)
                 .exchange()
@@ -168,20 +237,35 @@ public class CustomerEndpointTest {
         CustomerDTO testCustomer = getSavedTestCustomer();
         Customer tempCustomer = Customer.builder().customerName("New Name").build();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .patch().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, testCustomer.getId())
                 .body(Mono.just(tempCustomer), CustomerDTO.class)
                 .exchange()
                 .expectStatus().isNoContent();
     }
 
+    @Test
+    @Order(10)
+    void testPatchCustomerStaleIfMatch() {
+
+        CustomerDTO testCustomer = getSavedTestCustomer();
+        Customer tempCustomer = Customer.builder().customerName("New Name").build();
+
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
+                .patch().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, testCustomer.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + (testCustomer.getVersion() + 1) + "\"")
+                .body(Mono.just(tempCustomer), CustomerDTO.class)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
     @Test
     @Order(11)
     void testPatchCustomerByIdNotFound() {
         CustomerDTO testCustomer = getSavedTestCustomer();
         Customer tempCustomer = Customer.builder().customerName("New Name").build();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .patch().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, 999)
                 .body(Mono.just(tempCustomer), CustomerDTO.class)
                 .exchange()
@@ -195,11 +279,33 @@ public class CustomerEndpointTest {
         CustomerDTO testCustomer = getSavedTestCustomer();
         Customer tempCustomer = Customer.builder().customerName("").build();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .patch().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, testCustomer.getId())
                 .body(Mono.just(tempCustomer), CustomerDTO.class)
                 .exchange()
-                .expectStatus().isNoContent();
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(13)
+    void testDeleteCustomerWithoutAdminScope() {
+
+        CustomerDTO testCustomer = getSavedTestCustomer();
+
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
+                .delete().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, testCustomer.getId())
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @Order(13)
+    void testListCustomersWithBeerScope() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ))
+                .get().uri(CustomerRouterConfig.CUSTOMER_PATH)
+                .exchange()
+                .expectStatus().isForbidden();
     }
 
     @Test
@@ -208,7 +314,7 @@ public class CustomerEndpointTest {
 
         CustomerDTO testCustomer = getSavedTestCustomer();
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_ADMIN))
                 .delete().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, testCustomer.getId())
                 .exchange()
                 .expectStatus().isNoContent();
@@ -218,7 +324,7 @@ public class CustomerEndpointTest {
     @Order(14)
     void testDeleteCustomerByIdNotFound() {
 
-        webTestClient.mutateWith(mockOAuth2Login())
+        webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_ADMIN))
                 .delete().uri(CustomerRouterConfig.CUSTOMER_PATH_ID, 999)
                 .exchange()
                 .expectStatus().isNotFound();
@@ -226,7 +332,7 @@ public class CustomerEndpointTest {
 
     public CustomerDTO getSavedTestCustomer() {
 
-        FluxExchangeResult<CustomerDTO> customerDTOFluxExchangeResult = webTestClient.mutateWith(mockOAuth2Login())
+        FluxExchangeResult<CustomerDTO> customerDTOFluxExchangeResult = webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .post()
                 .uri(CustomerRouterConfig.CUSTOMER_PATH)
                 .body(Mono.just(CustomerServiceImplTest.getTestCustomer()), CustomerDTO.class)
@@ -236,7 +342,7 @@ public class CustomerEndpointTest {
 
         List<String> location = customerDTOFluxExchangeResult.getRequestHeaders().get("Location");
 
-        return webTestClient.mutateWith(mockOAuth2Login())
+        return webTestClient.mutateWith(withScopes(Scopes.CUSTOMER_READ, Scopes.CUSTOMER_WRITE))
                 .get().uri(CustomerRouterConfig.CUSTOMER_PATH)
                 .exchange().returnResult(CustomerDTO.class).getResponseBody().blockFirst();
     }
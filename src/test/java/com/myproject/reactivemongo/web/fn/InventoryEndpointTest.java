@@ -0,0 +1,78 @@
+package com.myproject.reactivemongo.web.fn;
+
+import com.myproject.reactivemongo.domain.Beer;
+import com.myproject.reactivemongo.model.BeerDTO;
+import com.myproject.reactivemongo.model.StyleInventory;
+import com.myproject.reactivemongo.security.Scopes;
+import com.myproject.reactivemongo.services.BeerServiceImplTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.myproject.reactivemongo.security.ScopedLogin.withScopes;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+class InventoryEndpointTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Test
+    void testStockByStyle() {
+
+        final String BEER_STYLE = "INVENTORY_" + UUID.randomUUID();
+
+        for (int quantity : new int[]{2, 3}) {
+            Beer testBeer = BeerServiceImplTest.getTestBeer();
+            testBeer.setBeerStyle(BEER_STYLE);
+            testBeer.setQuantityOnHand(quantity);
+            testBeer.setPrice(new BigDecimal("1.50"));
+
+            webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                    .post().uri(BeerRouterConfig.BEER_PATH)
+                    .body(Mono.just(testBeer), Beer.class)
+                    .header("Content-type", "application/json")
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(InventoryRouterConfig.INVENTORY_PATH_BY_STYLE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(StyleInventory.class)
+                .value(report -> assertThat(report)
+                        .filteredOn(row -> BEER_STYLE.equals(row.getBeerStyle()))
+                        .singleElement()
+                        .satisfies(row -> {
+                            assertThat(row.getBeerCount()).isEqualTo(2);
+                            assertThat(row.getTotalQuantityOnHand()).isEqualTo(5);
+                            assertThat(row.getStockValue()).isEqualByComparingTo("7.50");
+                        }));
+    }
+
+    @Test
+    void testLowStock() {
+
+        webTestClient.mutateWith(withScopes(Scopes.BEER_READ, Scopes.BEER_WRITE))
+                .get().uri(UriComponentsBuilder
+                        .fromPath(InventoryRouterConfig.INVENTORY_PATH_LOW_STOCK)
+                        .queryParam(PageCursor.LIMIT_PARAM, 2).build().toUri())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BeerDTO.class)
+                .value(beers -> assertThat(beers)
+                        .hasSize(2)
+                        .extracting(BeerDTO::getQuantityOnHand)
+                        .isSorted());
+    }
+}